@@ -0,0 +1,79 @@
+package simulation;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import simulation.engine.CounterRandom;
+import simulation.engine.Grid;
+import simulation.engine.SimulationEngine;
+import simulation.records.BoardConfig;
+
+/**
+ * Board shared by the benchmarks: a size x size generated map, whose terrain leaves pointPercentage of
+ * its cells as clearings, with fireCoverage of the fuel cells set on fire. The board has no GUI attached.
+ */
+@State(Scope.Thread)
+public class BoardFixture {
+    private static final long SEED = 42;
+
+    @Param({"100", "500", "1000"})
+    public int size;
+
+    @Param({"0.1", "0.5"})
+    public double pointPercentage;
+
+    @Param({"0.001", "0.05"})
+    public double fireCoverage;
+
+    public Board board;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        build();
+    }
+
+    public void build() {
+        BoardConfig config = new BoardConfig(
+                size,
+                size,
+                10.0,
+                Directions.EAST,
+                0.4,
+                0.001,
+                20.0,
+                260.0,
+                310.0,
+                300.0,
+                275.0,
+                215.0,
+                Math.max(1, 1400 / size),
+                pointPercentage
+        );
+        int length = size + 2 * SimulationEngine.MAP_OFFSET_X;
+        int height = size + 2 * SimulationEngine.MAP_OFFSET_Y;
+        board = new Board(null, length, height, config, SEED);
+        board.removeComponentListener(board);
+        board.setSize(length * config.size(), height * config.size());
+
+        SimulationEngine engine = board.getEngine();
+        Grid grid = engine.getGrid();
+        for (int x = SimulationEngine.MAP_OFFSET_X; x < SimulationEngine.MAP_OFFSET_X + size; x++) {
+            for (int y = SimulationEngine.MAP_OFFSET_Y; y < SimulationEngine.MAP_OFFSET_Y + size; y++) {
+                if (grid.getType(grid.index(x, y)) != PointStates.NO_FIRE
+                        && CounterRandom.nextDouble(SEED, 0, (long) x * height + y, 0) < fireCoverage) {
+                    engine.edit(x, y, PointStates.FIRE);
+                }
+            }
+        }
+    }
+
+    public SimulationEngine engine() {
+        return board.getEngine();
+    }
+
+    public Grid grid() {
+        return board.getGrid();
+    }
+}
@@ -0,0 +1,51 @@
+package simulation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import simulation.adapters.MapShapeAdapter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming JSON map saving and loading as done by the GUI "Save Map" and "Load Map" buttons
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapBenchmark {
+    private String mapJson;
+
+    @Setup(Level.Trial)
+    public void setUp(BoardFixture fixture) throws IOException {
+        StringWriter writer = new StringWriter();
+        MapShapeAdapter.writeMap(fixture.grid(), writer, false);
+        mapJson = writer.toString();
+    }
+
+    @Benchmark
+    public void saveMap(BoardFixture fixture) throws IOException {
+        MapShapeAdapter.writeMap(fixture.grid(), Writer.nullWriter(), false);
+    }
+
+    @Benchmark
+    public void loadMap(BoardFixture fixture) throws IOException {
+        fixture.engine().clear();
+        MapShapeAdapter.readMap(new StringReader(mapJson), fixture.engine()::updatePoint);
+    }
+}
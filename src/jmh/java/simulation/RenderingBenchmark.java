@@ -0,0 +1,75 @@
+package simulation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Board rendering into an offscreen image: a full redraw, as after loading a map, and the incremental
+ * redraw after a single cell changed, as after a mouse edit
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderingBenchmark {
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private int editX;
+
+    @Setup(Level.Trial)
+    public void setUp(BoardFixture fixture) {
+        // let the fire develop a bit so there is something to draw in every colour
+        fixture.engine().run(20);
+        fixture.board.frame().capture(fixture.grid(), 0, -1, -1);
+        image = new BufferedImage(fixture.board.getWidth(), fixture.board.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage fullRedraw(BoardFixture fixture) {
+        BoardRenderer renderer = fixture.board.renderer();
+        BoardFrame frame = fixture.board.frame();
+        renderer.invalidate();
+        frame.invalidate();
+        renderer.update();
+        renderer.paint(graphics, image.getWidth(), image.getHeight());
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage editRedraw(BoardFixture fixture) {
+        editX = editX % (fixture.grid().width() - 2) + 1;
+        fixture.engine().edit(editX, 1, editX % 2 == 0 ? PointStates.LITTER : PointStates.NO_FIRE);
+        BoardFrame frame = fixture.board.frame();
+        frame.capture(fixture.grid(), 0, -1, -1);
+        BoardRenderer renderer = fixture.board.renderer();
+        Rectangle dirty = renderer.update();
+        if (dirty != null) {
+            graphics.setClip(dirty);
+            renderer.paint(graphics, image.getWidth(), image.getHeight());
+        }
+        return image;
+    }
+}
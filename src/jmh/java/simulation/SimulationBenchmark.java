@@ -0,0 +1,169 @@
+package simulation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import simulation.engine.Grid;
+import simulation.engine.ParallelStepper;
+import simulation.engine.Stepper;
+import simulation.engine.SteppingMode;
+import simulation.records.BoardConfig;
+import simulation.records.BoardStatistics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulation hot paths. The iteration benchmark steps a bare {@link Stepper} of the given mode {@link #TICKS}
+ * times on a copy of the board, which is the engine's share of a tick; the history, statistics snapshots,
+ * frames and recording Board adds to every tick of its SimulationLoop are left out. calculateNewState and
+ * update time one phase of the first tick. Every benchmark that steps works on a copy reset from the board
+ * of the trial before every invocation, so every sample times the same fire; the board itself never changes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+    public static final int TICKS = 20;
+
+    /**
+     * Copy of the board the fixture built for the trial, stepped in the given mode. threads is the size of the pool of
+     * PARALLEL, 0 for the common pool the engine uses; scaling is measured with
+     * {@code -p mode=PARALLEL -p threads=1,2,4,8,16}.
+     */
+    @State(Scope.Thread)
+    public static class Run {
+        @Param({"FULL_SCAN", "FRONTIER", "PARALLEL"})
+        public SteppingMode mode;
+
+        @Param({"0"})
+        public int threads;
+
+        private Grid base;
+        private Grid grid;
+        private ForkJoinPool pool;
+        private Stepper stepper;
+
+        @Setup(Level.Trial)
+        public void setUp(BoardFixture fixture) {
+            base = fixture.grid();
+            grid = base.replica(base.seed());
+            if (mode == SteppingMode.PARALLEL && threads > 0) {
+                pool = new ForkJoinPool(threads);
+                stepper = new ParallelStepper(grid, pool);
+            } else {
+                stepper = mode.create(grid);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            grid.resetFrom(base, base.seed());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            grid.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long iteration(Run run) {
+        for (int t = 0; t < TICKS; t++) {
+            run.stepper.step();
+        }
+        return run.grid.tick();
+    }
+
+    /**
+     * Copy of the board the fixture built for the trial, reset before every invocation
+     */
+    @State(Scope.Thread)
+    public static class Tick {
+        protected Grid base;
+        protected Grid grid;
+
+        @Setup(Level.Trial)
+        public void setUp(BoardFixture fixture) {
+            base = fixture.grid();
+            grid = base.replica(base.seed());
+        }
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            grid.resetFrom(base, base.seed());
+            prepare();
+        }
+
+        protected void prepare() {
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            grid.close();
+        }
+    }
+
+    /**
+     * Tick whose next temperatures were already calculated, for timing update on its own
+     */
+    @State(Scope.Thread)
+    public static class CalculatedTick extends Tick {
+        @Override
+        protected void prepare() {
+            calculate(grid);
+        }
+    }
+
+    @Benchmark
+    public Grid calculateNewState(Tick tick) {
+        calculate(tick.grid);
+        return tick.grid;
+    }
+
+    @Benchmark
+    public Grid update(CalculatedTick tick) {
+        Grid grid = tick.grid;
+        for (int x = 0; x < grid.width(); x++) {
+            int column = grid.index(x, 0);
+            grid.update(column, column + grid.height());
+        }
+        return grid;
+    }
+
+    private static void calculate(Grid grid) {
+        BoardConfig conf = grid.config();
+        for (int x = 0; x < grid.width(); x++) {
+            int column = grid.index(x, 0);
+            grid.calculateNewState(column, column + grid.height(), conf.windVelocity(), conf.windDirection());
+        }
+    }
+
+    @Benchmark
+    public BoardStatistics toBoardStatistics(BoardFixture fixture) {
+        return fixture.engine().toBoardStatistics();
+    }
+
+    @Benchmark
+    public BoardStatistics recountStatistics(BoardFixture fixture) {
+        return fixture.grid().recountStatistics();
+    }
+}
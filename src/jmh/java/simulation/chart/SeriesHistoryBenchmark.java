@@ -0,0 +1,62 @@
+package simulation.chart;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding an iteration to the chart history and reading it for a chart 800 pixels wide, after runs of
+ * different lengths. Both should cost the same whatever the length.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeriesHistoryBenchmark {
+    private static final int POINTS = 1600;
+
+    @Param({"100", "10000", "1000000"})
+    public int iterations;
+
+    private SeriesHistory history;
+    private final double[] values = new double[3];
+    private final double[][] xs = new double[3][POINTS];
+    private final double[][] ys = new double[3][POINTS];
+    private final int[] counts = new int[3];
+    private long x;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        history = new SeriesHistory(3, SeriesHistory.DEFAULT_CAPACITY);
+        while (x < iterations) {
+            add();
+        }
+    }
+
+    @Benchmark
+    public void add() {
+        values[0] = x;
+        values[1] = x % 1000;
+        values[2] = -x;
+        history.add(x++, values);
+    }
+
+    @Benchmark
+    public int[] read() {
+        history.read(POINTS, xs, ys, counts);
+        return counts;
+    }
+}
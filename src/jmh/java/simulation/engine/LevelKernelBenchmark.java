@@ -0,0 +1,118 @@
+package simulation.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The burn and update arithmetic of a tick over one chunk of cells, for the scalar and the vectorised
+ * kernel, one cell at a time and the way Grid does it, cooling and comparing the whole chunk at once and
+ * burning only the burning cells. fireCoverage is the share of burning levels, buffers where the chunk is
+ * kept, heap or direct as off-heap grids keep them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LevelKernelBenchmark {
+    private static final double AIR_TEMPERATURE = 20.0;
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    @Param({"0.0", "0.05", "0.5"})
+    public double fireCoverage;
+
+    @Param({"heap", "direct"})
+    public String buffers;
+
+    private LevelKernel levelKernel;
+    private FloatBuffer states;
+    private FloatBuffer temperatures;
+    private FloatBuffer next;
+    private int[] fire;
+    private double[] burningTemperatures;
+    private float[] roundedBurningTemperatures;
+    private int[] compared;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        levelKernel = kernel.equals("vector") ? LevelKernel.select() : new ScalarLevelKernel();
+        if (kernel.equals("vector") && !(levelKernel instanceof VectorLevelKernel)) {
+            throw new IllegalStateException("Vectorised kernel not available, run with --add-modules jdk.incubator.vector");
+        }
+
+        Random random = new Random(42);
+        states = chunk();
+        temperatures = chunk();
+        next = chunk();
+        for (int i = 0; i < LevelChunks.CHUNK_FLOATS; i++) {
+            states.put(i, 1.0f);
+            temperatures.put(i, 20 + random.nextFloat() * 600);
+        }
+        fire = new int[LevelChunks.CHUNK_CELLS];
+        burningTemperatures = new double[LevelChunks.CHUNK_CELLS];
+        roundedBurningTemperatures = new float[LevelChunks.CHUNK_CELLS];
+        compared = new int[LevelChunks.CHUNK_CELLS];
+        for (int cell = 0; cell < fire.length; cell++) {
+            for (int i = 0; i < Grid.LEVELS; i++) {
+                if (random.nextDouble() < fireCoverage) {
+                    fire[cell] |= 1 << i;
+                }
+            }
+            burningTemperatures[cell] = 200 + random.nextDouble() * 100;
+            float rounded = (float) burningTemperatures[cell];
+            roundedBurningTemperatures[cell] = rounded < burningTemperatures[cell] ? Math.nextUp(rounded) : rounded;
+        }
+    }
+
+    private FloatBuffer chunk() {
+        return buffers.equals("direct")
+                ? ByteBuffer.allocateDirect(LevelChunks.CHUNK_FLOATS * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer()
+                : FloatBuffer.allocate(LevelChunks.CHUNK_FLOATS);
+    }
+
+    @Benchmark
+    public int burnAndUpdate() {
+        int burning = 0;
+        for (int cell = 0; cell < fire.length; cell++) {
+            int base = LevelChunks.offset(cell);
+            levelKernel.burn(fire[cell] != 0 ? states : null, temperatures, next, base, fire[cell], burningTemperatures[cell], AIR_TEMPERATURE);
+            burning += levelKernel.compare(temperatures, next, base, burningTemperatures[cell]);
+        }
+        return burning;
+    }
+
+    @Benchmark
+    public int burnAndUpdateCells() {
+        levelKernel.cool(temperatures, next, 0, fire.length, AIR_TEMPERATURE);
+        for (int cell = 0; cell < fire.length; cell++) {
+            if (fire[cell] != 0) {
+                levelKernel.burn(states, temperatures, next, LevelChunks.offset(cell), fire[cell], burningTemperatures[cell], AIR_TEMPERATURE);
+            }
+        }
+        levelKernel.compare(temperatures, next, 0, fire.length, roundedBurningTemperatures, compared);
+        int burning = 0;
+        for (int result : compared) {
+            burning += result;
+        }
+        return burning;
+    }
+}
@@ -0,0 +1,77 @@
+package simulation.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import simulation.Directions;
+import simulation.records.BoardConfig;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A new size x size board with its terrain generated, on a pool of the given number of threads, 0 for the
+ * common pool. The grid is built inside the pool too, so the parallel clearing of its columns runs there
+ * and not on the common pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class TerrainBenchmark {
+    @Param({"1000", "4000"})
+    public int size;
+
+    @Param({"1", "0"})
+    public int threads;
+
+    private BoardConfig config;
+    private ForkJoinPool pool;
+    private long seed;
+    private Grid grid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        config = new BoardConfig(
+                size - 2 * SimulationEngine.MAP_OFFSET_X,
+                size - 2 * SimulationEngine.MAP_OFFSET_Y,
+                10, Directions.EAST, 0.4, 0.001, 20, 260, 310, 300, 275, 215, 1, 0.1);
+        pool = threads == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeGrid() {
+        if (grid != null) {
+            grid.close();
+            grid = null;
+        }
+    }
+
+    @Benchmark
+    public Grid generate() {
+        long gridSeed = seed++;
+        grid = pool.submit(() -> new Grid(size, size, config, gridSeed)).join();
+        new TerrainGenerator(SimulationEngine.MAP_OFFSET_X, SimulationEngine.MAP_OFFSET_Y, config.mapWidth(),
+                config.mapHeight(), config.pointPercentage(), pool).generate(grid, 0, 0);
+        return grid;
+    }
+}
@@ -1,335 +1,341 @@
 package simulation;
 
+import simulation.chart.SeriesHistory;
+import simulation.engine.Grid;
+import simulation.engine.SimulationEngine;
+import simulation.engine.SimulationLoop;
+import simulation.engine.SteppingMode;
+import simulation.instrumentation.Instrumentation;
+import simulation.instrumentation.Phase;
 import simulation.records.BoardConfig;
 import simulation.records.BoardStatistics;
-import simulation.records.PointJson;
+import simulation.records.PointStatistics;
 import simulation.records.TrackedPoint;
+import simulation.replay.ReplayRecorder;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Insets;
+import java.awt.Rectangle;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 import java.awt.event.MouseEvent;
-import java.util.Random;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
 import javax.swing.event.MouseInputListener;
 
 /**
  * simulation.Board with Points that may be expanded (with automatic change of cell
  * number) with mouse event listener
+ * <p>
+ * The simulation runs on the thread of a {@link SimulationLoop}. The board only hands it commands and
+ * shows the frames it publishes, so painting never waits for a tick and ticks never wait for painting.
+ * What part of the board is shown and how large is up to the {@link Viewport} of the renderer, which the
+ * mouse wheel zooms and dragging with the right or middle button pans.
  */
 
-public class Board extends JComponent implements MouseInputListener, ComponentListener {
+public class Board extends JComponent implements MouseInputListener, MouseWheelListener, ComponentListener {
     private static final long serialVersionUID = 1L;
-    private Point[][] points = new Point[0][0];
-    public PointStates editType = PointStates.NO_FIRE;
+    private final SimulationEngine engine;
+    private final transient SimulationLoop loop;
+    public volatile PointStates editType = PointStates.NO_FIRE;
 
     private BoardConfig boardConfig;
 
     private final GUI gui;
-    private TrackedPoint trackedPoint = null;
-
-    private final int length;
-    private final int height;
-
-    public int componentResizedNumber = 0;
-
-    public Board(GUI gui, int length, int height, BoardConfig boardConfig) {
+    private volatile TrackedPoint trackedPoint = null;
+    private final BoardRenderer renderer;
+    private final BoardFrame frame = new BoardFrame();
+    private final AtomicBoolean frameQueued = new AtomicBoolean();
+    // where the last drag event of a pan was, on the event dispatch thread
+    private int dragX;
+    private int dragY;
+
+    // used on the simulation thread only
+    private transient ReplayRecorder recorder = null;
+    private long iterations = 0;
+    // burnt, burning and unaffected fields per iteration, shown by the chart of the GUI
+    private final transient SeriesHistory history = new SeriesHistory(3, SeriesHistory.DEFAULT_CAPACITY);
+    private final double[] historyValues = new double[3];
+
+    // size in cells the window asks for, the board grows to it in a single queued command
+    private volatile int viewWidth;
+    private volatile int viewHeight;
+    private final AtomicBoolean resizeQueued = new AtomicBoolean();
+
+    public Board(GUI gui, int length, int height, BoardConfig boardConfig, long seed) {
         this.gui = gui;
         this.boardConfig = boardConfig;
         addMouseListener(this);
         addComponentListener(this);
         addMouseMotionListener(this);
+        addMouseWheelListener(this);
         setBackground(Color.WHITE);
         setOpaque(true);
         this.boardConfig = boardConfig;
 
-        this.length = length;
-        this.height = height;
-        initialize(length, height);
+        this.engine = new SimulationEngine(length, height, boardConfig, seed);
+        this.renderer = new BoardRenderer(frame, boardConfig.size());
+        this.loop = new SimulationLoop(engine);
+        loop.setTickListener(this::afterTick);
+        loop.setFramePublisher(this::publishFrame);
+        loop.setErrorHandler(exception -> SwingUtilities.invokeLater(() -> gui.simulationFailed(exception)));
+        addToHistory(engine);
     }
 
-    public Point[][] getPoints() {
-        return points;
+    // starts the simulation thread, until then the engine may be used directly
+    public void start() {
+        loop.start();
     }
 
-    public void updatePointsFromJson(PointJson[] pointJsons) {
-        clear();
+    public void shutdown() {
+        loop.shutdown();
+    }
 
-        for (PointJson pointJson : pointJsons) {
-            points[pointJson.x()][pointJson.y()].updateFromPointJson(pointJson);
-        }
+    public SimulationEngine getEngine() {
+        return engine;
+    }
 
-        this.repaint();
+    public Grid getGrid() {
+        return engine.getGrid();
     }
 
-    // single iteration
-    public void iteration() {
-        for (int x = 0; x < points.length; ++x)
-            for (int y = 0; y < points[x].length; ++y)
-                points[x][y].calculateNewState(boardConfig.windVelocity(), boardConfig.windDirection());
+    public SeriesHistory getHistory() {
+        return history;
+    }
 
-        for (int x = 0; x < points.length; ++x)
-            for (int y = 0; y < points[x].length; ++y)
-                points[x][y].update();
+    public BoardConfig getBoardConfig() {
+        return boardConfig;
+    }
 
-        if (trackedPoint != null) {
-            gui.pointStatsChanged(trackedPoint.point(), trackedPoint.pointX(), trackedPoint.pointY());
-        }
+    /**
+     * Runs the command on the simulation thread between two ticks, the board shows its effect afterwards
+     */
+    public void submit(Consumer<SimulationEngine> command) {
+        loop.submit(command);
+    }
 
-        gui.boardStatsChanged(this.toBoardStatistics());
+    public boolean isRunning() {
+        return loop.isRunning();
+    }
 
-        this.repaint();
+    public void setRunning(boolean running) {
+        loop.setRunning(running);
     }
 
-    // clearing board
-    public void clear() {
-        for (int x = 0; x < points.length; ++x)
-            for (int y = 0; y < points[x].length; ++y) {
-                points[x][y].initializeEmpty();
-            }
-        this.repaint();
-    }
-
-    private void initializeBoard(int width, int height) {
-        for (int x = 8; x < 8 + width; ++x) {
-            for (int y = 5; y < 5 + height; ++y) {
-                Random rnd = new Random();
-                switch (rnd.nextInt(5)) {
-                    case 0:
-                        points[x][y].initializeLitter();
-                        break;
-                    case 1:
-                        points[x][y].initializeFloor();
-                        break;
-                    case 2:
-                        points[x][y].initializeUnderstory();
-                        break;
-                    case 3:
-                        points[x][y].initializeConiferous();
-                        break;
-                    case 4:
-                        points[x][y].initializeDeciduous();
-                        break;
-                }
-            }
-        }
+    // single iteration while paused
+    public void step() {
+        loop.step();
     }
 
-    public void regenerateMap() {
-        clear();
-        initialize(this.length, this.height);
+    public void setTickDelay(int milliseconds) {
+        loop.setTickDelay(milliseconds, TimeUnit.MILLISECONDS);
     }
 
-    private void initialize(int length, int height) {
-        points = new Point[length][height];
+    public void setSteppingMode(SteppingMode steppingMode) {
+        loop.submit(engine -> engine.setSteppingMode(steppingMode));
+    }
 
-        for (int x = 0; x < points.length; ++x) {
-            for (int y = 0; y < points[x].length; ++y) {
-                points[x][y] = new Point(x, y, boardConfig);
+    /**
+     * Records every following iteration until stopRecording, the recording ends early when the board is resized
+     */
+    public void startRecording(Path path) {
+        loop.submit(engine -> {
+            closeRecorder();
+            try {
+                Grid grid = engine.getGrid();
+                recorder = new ReplayRecorder(path, grid.width(), grid.height(), ReplayRecorder.DEFAULT_KEYFRAME_INTERVAL);
+                recorder.record(grid);
+            } catch (IOException e) {
+                recordingStopped("Recording failed: " + e.getMessage());
+            }
+        });
+    }
+
+    public void stopRecording() {
+        loop.submit(engine -> closeRecorder());
+    }
 
-                if (Math.random() < boardConfig.pointPercentage()) {
-                    points[x][y].currentState = PointStates.NO_FIRE;
-                }
+    private void closeRecorder() {
+        if (recorder != null) {
+            ReplayRecorder stopped = recorder;
+            recorder = null;
+            try {
+                stopped.close();
+            } catch (IOException e) {
+                recordingStopped("Error saving replay: " + e.getMessage());
             }
         }
-        initializeBoard(boardConfig.mapWidth(), boardConfig.mapHeight());
-
-        for (int x = 1; x < points.length - 1; ++x) {
-            for (int y = 1; y < points[x].length - 1; ++y) {
-                // Moore'a Neighbourhood
-                points[x][y].addNeighbor(points[x][y - 1]);
-                points[x][y].addNeighbor(points[x + 1][y]);
-                points[x][y].addNeighbor(points[x][y + 1]);
-                points[x][y].addNeighbor(points[x - 1][y]);
-                points[x][y].addNeighbor(points[x - 1][y - 1]);
-                points[x][y].addNeighbor(points[x + 1][y - 1]);
-                points[x][y].addNeighbor(points[x + 1][y + 1]);
-                points[x][y].addNeighbor(points[x - 1][y + 1]);
+    }
+
+    private void recordingStopped(String message) {
+        SwingUtilities.invokeLater(() -> gui.recordingStopped(message));
+    }
+
+    // on the simulation thread after every iteration
+    private void afterTick(SimulationEngine engine) {
+        iterations++;
+        addToHistory(engine);
+        if (recorder != null) {
+            try {
+                recorder.record(engine.getGrid());
+            } catch (IOException e) {
+                closeRecorder();
+                recordingStopped("Recording failed: " + e.getMessage());
             }
         }
     }
 
-    // Paint background and separators between cells
-    protected void paintComponent(Graphics g) {
-        gui.boardStatsChanged(this.toBoardStatistics());
-        if (isOpaque()) {
-            g.setColor(getBackground());
-            g.fillRect(0, 0, this.getWidth(), this.getHeight());
-        }
-        g.setColor(Color.GRAY);
-        drawNetting(g, boardConfig.size());
-    }
-
-    // draws the background netting
-    private void drawNetting(Graphics g, int gridSpace) {
-        Insets insets = getInsets();
-        int firstX = insets.left;
-        int firstY = insets.top;
-        int lastX = this.getWidth() - insets.right;
-        int lastY = this.getHeight() - insets.bottom;
-
-        int x = firstX;
-        while (x < lastX) {
-            g.drawLine(x, firstY, x, lastY);
-            x += gridSpace;
-        }
+    private void addToHistory(SimulationEngine engine) {
+        BoardStatistics statistics = engine.toBoardStatistics();
+        historyValues[0] = statistics.burntFields();
+        historyValues[1] = statistics.fireFields();
+        historyValues[2] = statistics.allFields() - statistics.burntFields();
+        history.add(iterations, historyValues);
+    }
 
-        int y = firstY;
-        while (y < lastY) {
-            g.drawLine(firstX, y, lastX, y);
-            y += gridSpace;
+    // on the simulation thread, the frame is shown by the event dispatch thread once it gets to it
+    private void publishFrame(SimulationEngine engine) {
+        TrackedPoint tracked = trackedPoint;
+        frame.capture(engine.getGrid(), iterations,
+                tracked != null ? tracked.pointX() : -1, tracked != null ? tracked.pointY() : -1);
+        if (frameQueued.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::showFrame);
         }
+    }
 
-        for (x = 0; x < points.length; ++x) {
-            for (y = 0; y < points[x].length; ++y) {
-                if (points[x][y].getState() != PointStates.NO_FIRE) {
-                    switch (points[x][y].getState()) {
-                        case LITTER:
-                            g.setColor(new Color(0x59350e));
-
-                            break;
-                        case FLOOR:
-                            g.setColor(new Color(0x9c6427));
-
-                            break;
-                        case UNDERSTORY:
-                            g.setColor(new Color(0xadd962));
-
-                            break;
-                        case CONIFEROUS:
-                            g.setColor(new Color(0x364f0d));
-
-                            break;
-                        case DECIDUOUS:
-                            g.setColor(new Color(0x6aa60a));
-
-                            break;
-                    }
-                    for (int i = 0; i < Point.LEVELS; i++) {
-                        if (points[x][y].state.get(i) < 1) {
-                            g.setColor(new Color(0x333333));
-                        }
-                        if (points[x][y].onFire.get(i) == Boolean.TRUE) {
-                            if (points[x][y].temperature.get(i) < 1000)
-                                g.setColor(new Color(0xff0000));
-                            else if (points[x][y].temperature.get(i) < 1200)
-                                g.setColor(new Color(0xffa500));
-                            else
-                                g.setColor(new Color(0xffd700));
-                            break;
-                        }
-                    }
-
-                    g.fillRect((x * boardConfig.size()) + 1, (y * boardConfig.size()) + 1, (boardConfig.size() - 1), (boardConfig.size() - 1));
-                }
-            }
+    private void showFrame() {
+        frameQueued.set(false);
+        long begin = Instrumentation.begin();
+        Rectangle dirty = renderer.update();
+        if (dirty != null) {
+            this.repaint(dirty);
+        }
+        Instrumentation.end(Phase.RENDER, begin);
+
+        long frameIterations;
+        BoardStatistics statistics;
+        PointStatistics pointStatistics;
+        synchronized (frame) {
+            frameIterations = frame.iterations();
+            statistics = frame.statistics();
+            pointStatistics = frame.pointStatistics();
+        }
+        begin = Instrumentation.begin();
+        gui.boardStatsChanged(frameIterations, statistics);
+        if (pointStatistics != null && trackedPoint != null) {
+            gui.pointStatsChanged(pointStatistics);
         }
+        Instrumentation.end(Phase.STATS_PANELS, begin);
     }
 
+    // clearing board
+    public void clear() {
+        loop.submit(engine -> {
+            engine.clear();
+            iterations = 0;
+            history.clear();
+            addToHistory(engine);
+        });
+    }
 
-    public BoardStatistics toBoardStatistics() {
-        int allFieldsCount = 0;
-        int burntFieldsCount = 0;
-        int fireFieldsCount = 0;
-        int litterFieldsCount = 0;
-        int floorFieldsCount = 0;
-        int understoryFieldsCount = 0;
-        int coniferousFieldsCount = 0;
-        int deciduousFieldsCount = 0;
-
-        for (int x = 0; x < points.length; ++x) {
-            for (int y = 0; y < points[x].length; ++y) {
-                Point point = points[x][y];
-                if (point.currentState != PointStates.NO_FIRE) {
-                    boolean burntStatement = true;
-                    boolean fireStatement = true;
-                    for (int i = 0; i < Point.LEVELS; i++) {
-                        if (points[x][y].state.get(i) < 1 && burntStatement) {
-                            burntStatement = false;
-                            burntFieldsCount++;
-                        }
-                        if (points[x][y].onFire.get(i) == Boolean.TRUE && fireStatement) {
-                            fireStatement = false;
-                            fireFieldsCount++;
-                        }
-                    }
-
-                    allFieldsCount++;
-
-                    if (point.litter && burntStatement) litterFieldsCount++;
-                    if (point.floor && burntStatement) floorFieldsCount++;
-                    if (point.understory && burntStatement) understoryFieldsCount++;
-                    if (point.coniferous && burntStatement) coniferousFieldsCount++;
-                    if (point.deciduous && burntStatement) deciduousFieldsCount++;
-                }
-            }
+    public void regenerateMap() {
+        loop.submit(engine -> {
+            engine.regenerateMap(engine.getGrid().width(), engine.getGrid().height());
+            long seed = engine.getSeed();
+            SwingUtilities.invokeLater(() -> gui.seedChanged(seed));
+        });
+    }
+
+    // Paint background, cells and separators between cells
+    protected void paintComponent(Graphics g) {
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, this.getWidth(), this.getHeight());
         }
+        long begin = Instrumentation.begin();
+        renderer.paint(g, this.getWidth(), this.getHeight());
+        Instrumentation.end(Phase.PAINT, begin);
+    }
 
-        return new BoardStatistics(
-                allFieldsCount,
-                burntFieldsCount,
-                fireFieldsCount,
-                litterFieldsCount,
-                floorFieldsCount,
-                understoryFieldsCount,
-                coniferousFieldsCount,
-                deciduousFieldsCount
-        );
+    BoardRenderer renderer() {
+        return renderer;
     }
 
+    BoardFrame frame() {
+        return frame;
+    }
 
     public void mouseClicked(MouseEvent e) {
-        int x = e.getX() / boardConfig.size();
-        int y = e.getY() / boardConfig.size();
-        if ((x < points.length) && (x > 0) && (y < points[x].length) && (y > 0)) {
-            if (editType == PointStates.LITTER) {
-                points[x][y].initializeLitter();
-            } else if (editType == PointStates.FLOOR) {
-                points[x][y].initializeFloor();
-            } else if (editType == PointStates.UNDERSTORY) {
-                points[x][y].initializeUnderstory();
-            } else if (editType == PointStates.CONIFEROUS) {
-                points[x][y].initializeConiferous();
-            } else if (editType == PointStates.DECIDUOUS) {
-                points[x][y].initializeDeciduous();
-            } else if (editType == PointStates.FIRE) {
-                points[x][y].addFireSource();
-            } else {
-                points[x][y].initializeEmpty();
-            }
-            this.repaint();
+        if (SwingUtilities.isLeftMouseButton(e)) {
+            edit(e);
         }
     }
 
+    /**
+     * Grows the board when the window gets larger than it at the configured cell size, keeping the state of
+     * every cell. A smaller window only shows less of the board, zooming does not change its size. Events
+     * coming in while a resize is queued are folded into it.
+     */
     public void componentResized(ComponentEvent e) {
-            int width = (this.getWidth() / boardConfig.size()) + 1;
-            int height = (this.getHeight() / boardConfig.size()) + 1;
-            initialize(width, height);
+        viewWidth = (this.getWidth() / boardConfig.size()) + 1;
+        viewHeight = (this.getHeight() / boardConfig.size()) + 1;
+        if (!resizeQueued.compareAndSet(false, true)) {
+            return;
+        }
+        loop.submit(engine -> {
+            resizeQueued.set(false);
+            if (engine.grow(viewWidth, viewHeight) && recorder != null) {
+                closeRecorder();
+                recordingStopped("Recording stopped, the board was resized.");
+            }
+        });
     }
 
+    // the left button draws, the others pan the view
     public void mouseDragged(MouseEvent e) {
-        int x = e.getX() / boardConfig.size();
-        int y = e.getY() / boardConfig.size();
-        if ((x < points.length) && (x > 0) && (y < points[x].length) && (y > 0)) {
-            if (editType == PointStates.LITTER) {
-                points[x][y].initializeLitter();
-            } else if (editType == PointStates.FLOOR) {
-                points[x][y].initializeFloor();
-            } else if (editType == PointStates.UNDERSTORY) {
-                points[x][y].initializeUnderstory();
-            } else if (editType == PointStates.CONIFEROUS) {
-                points[x][y].initializeConiferous();
-            } else if (editType == PointStates.DECIDUOUS) {
-                points[x][y].initializeDeciduous();
-            } else if (editType == PointStates.FIRE) {
-                points[x][y].addFireSource();
-            } else {
-                points[x][y].initializeEmpty();
-            }
-            this.repaint();
+        if (SwingUtilities.isLeftMouseButton(e)) {
+            edit(e);
+            return;
+        }
+        renderer.viewport().pan(e.getX() - dragX, e.getY() - dragY);
+        dragX = e.getX();
+        dragY = e.getY();
+        viewportChanged(e);
+    }
+
+    // zooms around the pointer, one step per notch of the wheel
+    public void mouseWheelMoved(MouseWheelEvent e) {
+        if (renderer.viewport().zoom(-e.getWheelRotation(), e.getX(), e.getY())) {
+            viewportChanged(e);
+        }
+    }
+
+    private void viewportChanged(MouseEvent e) {
+        renderer.invalidate();
+        repaint();
+        track(e.getX(), e.getY());
+    }
+
+    private void edit(MouseEvent e) {
+        if (!isEnabled()) {
+            return;
         }
+        int x = renderer.viewport().cellX(e.getX());
+        int y = renderer.viewport().cellY(e.getY());
+        PointStates type = editType;
+        loop.submit(engine -> {
+            Grid grid = engine.getGrid();
+            if (grid.contains(x, y)) {
+                engine.edit(x, y, type);
+            }
+        });
     }
 
     public void mouseExited(MouseEvent e) {
@@ -350,11 +356,23 @@ public class Board extends JComponent implements MouseInputListener, ComponentLi
     }
 
     public void mouseMoved(MouseEvent e) {
-        int x = e.getX() / boardConfig.size();
-        int y = e.getY() / boardConfig.size();
-        if ((x < points.length) && (x > 0) && (y < points[x].length) && (y > 0)) {
-            gui.pointStatsChanged(points[x][y], x, y);
-            trackedPoint = new TrackedPoint(points[x][y], x, y);
+        track(e.getX(), e.getY());
+    }
+
+    // tracks the cell under the pointer, only requesting a frame when it is another cell
+    private void track(int pixelX, int pixelY) {
+        int x = renderer.viewport().cellX(pixelX);
+        int y = renderer.viewport().cellY(pixelY);
+        boolean onBoard;
+        synchronized (frame) {
+            onBoard = x >= 0 && y >= 0 && x < frame.width() && y < frame.height();
+        }
+        if (onBoard) {
+            TrackedPoint tracked = trackedPoint;
+            if (tracked == null || tracked.pointX() != x || tracked.pointY() != y) {
+                trackedPoint = new TrackedPoint(x, y);
+                loop.requestFrame();
+            }
         } else {
             gui.showInitialMessage();
             trackedPoint = null;
@@ -365,6 +383,8 @@ public class Board extends JComponent implements MouseInputListener, ComponentLi
     }
 
     public void mousePressed(MouseEvent e) {
+        dragX = e.getX();
+        dragY = e.getY();
     }
 
 }
@@ -0,0 +1,255 @@
+package simulation;
+
+import simulation.engine.Grid;
+import simulation.engine.VisibleState;
+import simulation.instrumentation.Instrumentation;
+import simulation.instrumentation.Phase;
+import simulation.records.BoardStatistics;
+import simulation.records.PointStatistics;
+
+/**
+ * What the board shows, captured on the simulation thread and read on the event dispatch thread.
+ * Captures only copy the cells changed since the previous capture, skipping change blocks of the grid
+ * without changes, and grow the dirty area until the event dispatch thread takes it, all under the lock of
+ * the frame. The statistics of the tracked point are only taken again when it moved or its cell changed,
+ * otherwise frames keep the same instance.
+ * <p>
+ * Next to the visible state of every cell the frame keeps mip levels for zooming out: level m holds one code
+ * per block of 2^m by 2^m cells, the code of the block that shows the most, see PRIORITY. A changed cell
+ * only updates the levels above it until one of them stays the same.
+ */
+class BoardFrame {
+    private static final int LEVELS = Viewport.MAX_MIP_LEVEL + 1;
+    // fire shows over burnt cells, burnt cells over fuel and fuel over empty cells
+    private static final int[] PRIORITY = new int[VisibleState.CODES];
+
+    static {
+        for (int code = 0; code < VisibleState.CODES; code++) {
+            int fire = VisibleState.fireBucket((byte) code);
+            PointStates type = VisibleState.type((byte) code);
+            if (fire != VisibleState.FIRE_NONE) {
+                PRIORITY[code] = 3 * VisibleState.CODES + fire;
+            } else if (VisibleState.isBurnt((byte) code)) {
+                PRIORITY[code] = 2 * VisibleState.CODES;
+            } else if (type != PointStates.NO_FIRE) {
+                PRIORITY[code] = VisibleState.CODES + type.ordinal();
+            }
+        }
+    }
+
+    private Grid grid;
+    private int width;
+    private int height;
+    // codes by mip level, at x * levelHeights[m] + y
+    private final byte[][] levels = new byte[LEVELS][0];
+    private final int[] levelWidths = new int[LEVELS];
+    private final int[] levelHeights = new int[LEVELS];
+    private int generation;
+
+    // dirty cells not yet taken, in cell coordinates, empty when maxX < minX
+    private int minX;
+    private int minY;
+    private int maxX = -1;
+    private int maxY = -1;
+    private boolean resized;
+
+    private long iterations;
+    private BoardStatistics statistics;
+    private PointStatistics pointStatistics;
+
+    synchronized void capture(Grid grid, long iterations, int trackedX, int trackedY) {
+        long begin = Instrumentation.begin();
+        boolean replaced = grid != this.grid;
+        if (replaced) {
+            this.grid = grid;
+            if (grid.width() != width || grid.height() != height) {
+                width = grid.width();
+                height = grid.height();
+                allocate();
+                resized = true;
+            }
+            byte[] visible = levels[0];
+            for (int x = 0; x < width; x++) {
+                int column = grid.index(x, 0);
+                for (int y = 0; y < height; y++) {
+                    visible[x * height + y] = grid.visibleState(column + y);
+                }
+            }
+            for (int m = 1; m < LEVELS; m++) {
+                for (int x = 0; x < levelWidths[m]; x++) {
+                    for (int y = 0; y < levelHeights[m]; y++) {
+                        levels[m][x * levelHeights[m] + y] = aggregate(m, x, y);
+                    }
+                }
+            }
+            markDirty(0, 0);
+            markDirty(width - 1, height - 1);
+        } else {
+            byte[] visible = levels[0];
+            for (int x = 0; x < width; x++) {
+                int column = grid.index(x, 0);
+                int y = 0;
+                while (y < height) {
+                    int cell = column + y;
+                    int end = Math.min(height, y + (((cell >>> Grid.CHANGE_BLOCK_SHIFT) + 1) << Grid.CHANGE_BLOCK_SHIFT) - cell);
+                    if (!grid.blockChangedSince(cell, generation)) {
+                        y = end;
+                        continue;
+                    }
+                    for (; y < end; y++) {
+                        if (!grid.changedSince(column + y, generation)) {
+                            continue;
+                        }
+                        byte code = grid.visibleState(column + y);
+                        if (code != visible[x * height + y]) {
+                            visible[x * height + y] = code;
+                            propagate(x, y);
+                            markDirty(x, y);
+                        }
+                    }
+                }
+            }
+        }
+        if (trackedX < 0 || !grid.contains(trackedX, trackedY)) {
+            pointStatistics = null;
+        } else if (replaced || pointStatistics == null
+                || pointStatistics.pointX() != trackedX || pointStatistics.pointY() != trackedY
+                || grid.changedSince(grid.index(trackedX, trackedY), generation)) {
+            pointStatistics = new Point(grid, trackedX, trackedY).toPointStatistics(trackedX, trackedY);
+        }
+        generation = grid.nextGeneration();
+
+        this.iterations = iterations;
+        this.statistics = grid.toBoardStatistics();
+        Instrumentation.end(Phase.CAPTURE, begin);
+    }
+
+    private void allocate() {
+        for (int m = 0; m < LEVELS; m++) {
+            levelWidths[m] = (width + (1 << m) - 1) >> m;
+            levelHeights[m] = (height + (1 << m) - 1) >> m;
+            levels[m] = new byte[levelWidths[m] * levelHeights[m]];
+        }
+    }
+
+    // code of the block (x, y) of level m from the four blocks below it
+    private byte aggregate(int m, int x, int y) {
+        byte[] below = levels[m - 1];
+        int belowHeight = levelHeights[m - 1];
+        int lastX = Math.min(2 * x + 1, levelWidths[m - 1] - 1);
+        int lastY = Math.min(2 * y + 1, belowHeight - 1);
+        byte code = below[2 * x * belowHeight + 2 * y];
+        for (int bx = 2 * x; bx <= lastX; bx++) {
+            for (int by = 2 * y; by <= lastY; by++) {
+                byte candidate = below[bx * belowHeight + by];
+                if (PRIORITY[candidate] > PRIORITY[code]) {
+                    code = candidate;
+                }
+            }
+        }
+        return code;
+    }
+
+    // brings the levels above a changed cell up to date
+    private void propagate(int x, int y) {
+        for (int m = 1; m < LEVELS; m++) {
+            x >>= 1;
+            y >>= 1;
+            byte code = aggregate(m, x, y);
+            int index = x * levelHeights[m] + y;
+            if (levels[m][index] == code) {
+                return;
+            }
+            levels[m][index] = code;
+        }
+    }
+
+    // marks the whole board dirty so the next update of a renderer looks at every cell
+    synchronized void invalidate() {
+        markDirty(0, 0);
+        markDirty(width - 1, height - 1);
+    }
+
+    private void markDirty(int x, int y) {
+        if (maxX < minX) {
+            minX = maxX = x;
+            minY = maxY = y;
+            return;
+        }
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+    }
+
+    // the following are read by the renderer and the GUI while holding the lock of the frame
+
+    int width() {
+        return width;
+    }
+
+    int height() {
+        return height;
+    }
+
+    byte visibleState(int x, int y) {
+        return levels[0][x * height + y];
+    }
+
+    // size of mip level m in blocks, level 0 is the board
+    int levelWidth(int m) {
+        return levelWidths[m];
+    }
+
+    int levelHeight(int m) {
+        return levelHeights[m];
+    }
+
+    // code of the block (x, y) of mip level m
+    byte code(int m, int x, int y) {
+        return levels[m][x * levelHeights[m] + y];
+    }
+
+    boolean isDirty() {
+        return maxX >= minX;
+    }
+
+    int dirtyMinX() {
+        return minX;
+    }
+
+    int dirtyMinY() {
+        return minY;
+    }
+
+    int dirtyMaxX() {
+        return maxX;
+    }
+
+    int dirtyMaxY() {
+        return maxY;
+    }
+
+    // whether the dimensions changed since the dirty area was last taken
+    boolean isResized() {
+        return resized;
+    }
+
+    void clearDirty() {
+        maxX = maxY = -1;
+        minX = minY = 0;
+        resized = false;
+    }
+
+    long iterations() {
+        return iterations;
+    }
+
+    BoardStatistics statistics() {
+        return statistics;
+    }
+
+    PointStatistics pointStatistics() {
+        return pointStatistics;
+    }
+}
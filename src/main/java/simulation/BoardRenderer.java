@@ -0,0 +1,178 @@
+package simulation;
+
+import simulation.engine.VisibleState;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Keeps what the component shows of the board as an image the size of the component, written straight into
+ * its int raster. Only the units of the {@link Viewport} in sight are drawn, one block of pixels per unit
+ * from the mip level of the zoom, so the cost follows the size of the component and not of the board. Units
+ * in the dirty area of a frame are only redrawn when their code changed; panning, zooming and resizing
+ * redraw everything in sight. Used on the event dispatch thread.
+ */
+class BoardRenderer {
+    // units smaller than this are drawn without netting
+    private static final int NETTING_MIN_SIZE = 4;
+    // code of units off the board, no cell has it
+    private static final byte OUTSIDE = (byte) VisibleState.CODES;
+
+    private final BoardFrame frame;
+    private final Viewport viewport;
+    private final int[] palette = new int[VisibleState.CODES];
+
+    private BufferedImage image;
+    private int[] pixels;
+    // codes drawn for the units in sight, from firstUnitX and firstUnitY on, -1 when not drawn
+    private byte[] drawn = new byte[0];
+    private int firstUnitX;
+    private int firstUnitY;
+    private int unitsX;
+    private int unitsY;
+    private boolean redrawAll = true;
+
+    BoardRenderer(BoardFrame frame, int cellSize) {
+        this.frame = frame;
+        this.viewport = new Viewport(cellSize);
+        for (int code = 0; code < VisibleState.CODES; code++) {
+            palette[code] = Palette.rgb((byte) code);
+        }
+    }
+
+    Viewport viewport() {
+        return viewport;
+    }
+
+    /**
+     * Takes the dirty area of the frame into the image
+     *
+     * @return area of the component to repaint, or null when nothing in sight changed
+     */
+    Rectangle update() {
+        synchronized (frame) {
+            if (!frame.isDirty()) {
+                return null;
+            }
+            if (frame.isResized()) {
+                redrawAll = true;
+            }
+            if (image == null) {
+                return null;
+            }
+            if (redrawAll) {
+                frame.clearDirty();
+                return new Rectangle(0, 0, image.getWidth(), image.getHeight());
+            }
+            int m = viewport.mipLevel();
+            int fromX = Math.max(frame.dirtyMinX() >> m, firstUnitX);
+            int fromY = Math.max(frame.dirtyMinY() >> m, firstUnitY);
+            int toX = Math.min(frame.dirtyMaxX() >> m, firstUnitX + unitsX - 1);
+            int toY = Math.min(frame.dirtyMaxY() >> m, firstUnitY + unitsY - 1);
+            frame.clearDirty();
+
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int maxX = -1;
+            int maxY = -1;
+            for (int x = fromX; x <= toX; x++) {
+                for (int y = fromY; y <= toY; y++) {
+                    if (drawUnit(x, y)) {
+                        minX = Math.min(minX, x);
+                        minY = Math.min(minY, y);
+                        maxX = Math.max(maxX, x);
+                        maxY = Math.max(maxY, y);
+                    }
+                }
+            }
+            if (maxX < minX) {
+                return null;
+            }
+            int size = viewport.cellSize();
+            return new Rectangle(minX * size - viewport.offsetX(), minY * size - viewport.offsetY(),
+                    (maxX - minX + 1) * size, (maxY - minY + 1) * size);
+        }
+    }
+
+    // forgets what was drawn so the next paint redraws everything in sight, after the viewport changed
+    void invalidate() {
+        redrawAll = true;
+    }
+
+    /**
+     * Draws the board at the size of the component into the clip of g
+     */
+    void paint(Graphics g, int width, int height) {
+        width = Math.max(width, 1);
+        height = Math.max(height, 1);
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            redrawAll = true;
+        }
+        if (redrawAll) {
+            redraw();
+        }
+        g.drawImage(image, 0, 0, null);
+    }
+
+    private void redraw() {
+        redrawAll = false;
+        firstUnitX = viewport.unitX(0);
+        firstUnitY = viewport.unitY(0);
+        unitsX = viewport.unitX(image.getWidth() - 1) - firstUnitX + 1;
+        unitsY = viewport.unitY(image.getHeight() - 1) - firstUnitY + 1;
+        if (drawn.length < unitsX * unitsY) {
+            drawn = new byte[unitsX * unitsY];
+        }
+        Arrays.fill(drawn, (byte) -1);
+        synchronized (frame) {
+            for (int x = firstUnitX; x < firstUnitX + unitsX; x++) {
+                for (int y = firstUnitY; y < firstUnitY + unitsY; y++) {
+                    drawUnit(x, y);
+                }
+            }
+        }
+    }
+
+    // draws the unit when its code changed since it was last drawn, units off the board show the outside
+    private boolean drawUnit(int x, int y) {
+        int m = viewport.mipLevel();
+        boolean onBoard = x >= 0 && y >= 0 && x < frame.levelWidth(m) && y < frame.levelHeight(m);
+        byte code = onBoard ? frame.code(m, x, y) : OUTSIDE;
+        int index = (x - firstUnitX) * unitsY + y - firstUnitY;
+        if (drawn[index] == code) {
+            return false;
+        }
+        drawn[index] = code;
+        fillUnit(x, y, onBoard ? palette[code] : Palette.OUTSIDE, onBoard && viewport.cellSize() >= NETTING_MIN_SIZE);
+        return true;
+    }
+
+    // the block of the unit, inside the netting when it has one, like fillRect(x * size + 1, y * size + 1, size - 1, size - 1)
+    private void fillUnit(int x, int y, int rgb, boolean netting) {
+        int size = viewport.cellSize();
+        int imageWidth = image.getWidth();
+        int left = x * size - viewport.offsetX();
+        int top = y * size - viewport.offsetY();
+        int right = Math.min(left + size, imageWidth);
+        int bottom = Math.min(top + size, image.getHeight());
+        int fromX = Math.max(left, 0);
+        for (int row = Math.max(top, 0); row < bottom; row++) {
+            int start = row * imageWidth;
+            if (netting && row == top) {
+                Arrays.fill(pixels, start + fromX, start + right, Palette.NETTING);
+                continue;
+            }
+            if (netting && left >= 0) {
+                pixels[start + left] = Palette.NETTING;
+                Arrays.fill(pixels, start + left + 1, start + right, rgb);
+            } else {
+                Arrays.fill(pixels, start + fromX, start + right, rgb);
+            }
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package simulation;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializer;
+import simulation.adapters.BinaryMapAdapter;
 import simulation.adapters.MapShapeAdapter;
+import simulation.chart.HistoryDataset;
 import simulation.components.TextAreaRenderer;
+import simulation.components.TimingsPanel;
+import simulation.engine.SimulationEngine;
+import simulation.engine.SteppingMode;
+import simulation.instrumentation.Instrumentation;
 import simulation.records.BoardConfig;
 import simulation.records.BoardStatistics;
+import simulation.records.MapHeader;
 import simulation.records.PointStatistics;
-import simulation.records.PointJson;
+import simulation.replay.ReplayPlayer;
+import simulation.replay.ReplayRecorder;
 
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -18,25 +23,21 @@ import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import javax.swing.table.DefaultTableModel;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Reader;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
-import java.util.List;
+import java.util.function.DoubleConsumer;
 
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
 
 /**
  * Class containing simulation.GUI: board + buttons
  */
 public class GUI extends JPanel implements ActionListener, ChangeListener {
     private static final long serialVersionUID = 1L;
-    private Timer timer;
     private Board board;
 
     private JButton restart;
@@ -44,39 +45,48 @@ public class GUI extends JPanel implements ActionListener, ChangeListener {
     private JButton loadMap;
     private JButton saveMap;
     private JButton start;
+    private JButton step;
     private JButton clear;
+    private JToggleButton record;
+    private JButton openReplay;
+    private JToggleButton timings;
 
     private JSlider pred;
     private JFrame frame;
     private JComboBox<PointStates> drawType;
-    private int iterNum = 0;
+    private JComboBox<SteppingMode> steppingMode;
+    private long iterNum = 0;
     private final int maxDelay = 500;
     private final int initDelay = 100;
-    private boolean running = false;
 
     private Font statsFont = new Font("SansSerif", Font.PLAIN, 12);
     private DecimalFormat decimalFormat = new DecimalFormat("#.####");
     private JLabel initialMessageLabel;
 
     private JPanel pointStatsPanel;
+    private CardLayout pointStatsCards;
+    private JTable pointStatsTable;
+    private DefaultTableModel pointStatsModel;
+    private PointStatistics shownPointStatistics;
+    private boolean pointStatsRowHeights;
     private JPanel worldStatsPanel;
     private JTable worldStatsTable;
     private DefaultTableModel worldStatsModel;
+    private TimingsPanel timingsPanel;
 
-    private XYSeries burntFieldsSeries;
-    private XYSeries burningFieldsSeries;
-    private XYSeries unaffectedFieldsSeries;
+    private HistoryDataset historyDataset;
+    private ChartPanel chartPanel;
+    // errors of the simulation thread coming while one is shown are not shown on top of it
+    private boolean showingSimulationError;
 
     public GUI(JFrame jf) {
         frame = jf;
-        timer = new Timer(initDelay, this);
-        timer.stop();
     }
 
     /**
      * @param container to which simulation.GUI and board is added
      */
-    public void initialize(Container container, BoardConfig boardConfig) {
+    public void initialize(Container container, BoardConfig boardConfig, long seed) {
         // simulation.Board
         container.setLayout(new BorderLayout());
 
@@ -97,12 +107,12 @@ public class GUI extends JPanel implements ActionListener, ChangeListener {
 
         loadMap = new JButton("Load Map");
         loadMap.setActionCommand("loadMap");
-        loadMap.setToolTipText("Load map from *.json file");
+        loadMap.setToolTipText("Load map from *.json or *" + BinaryMapAdapter.EXTENSION + " file");
         loadMap.addActionListener(this);
 
         saveMap = new JButton("Save Map");
         saveMap.setActionCommand("saveMap");
-        saveMap.setToolTipText("Save map from *.json file");
+        saveMap.setToolTipText("Save map to *.json or *" + BinaryMapAdapter.EXTENSION + " file");
         saveMap.addActionListener(this);
 
         start = new JButton("Start");
@@ -110,41 +120,107 @@ public class GUI extends JPanel implements ActionListener, ChangeListener {
         start.setToolTipText("Starts clock");
         start.addActionListener(this);
 
+        step = new JButton("Step");
+        step.setActionCommand("step");
+        step.setToolTipText("Runs a single iteration");
+        step.addActionListener(this);
+
         clear = new JButton("Clear");
         clear.setActionCommand("clear");
         clear.setToolTipText("Clears the board");
         clear.addActionListener(this);
 
+        record = new JToggleButton("Record");
+        record.setActionCommand("record");
+        record.setToolTipText("Record the following iterations to a *" + ReplayRecorder.EXTENSION + " replay");
+        record.addActionListener(this);
+
+        openReplay = new JButton("Open Replay");
+        openReplay.setActionCommand("openReplay");
+        openReplay.setToolTipText("Play back a recorded replay");
+        openReplay.addActionListener(this);
+
+        timings = new JToggleButton("Timings");
+        timings.setActionCommand("timings");
+        timings.setToolTipText("Measure where the time of an iteration goes");
+        timings.setSelected(Instrumentation.isEnabled());
+        timings.addActionListener(this);
+
         pred = new JSlider();
         pred.setMinimum(0);
         pred.setMaximum(maxDelay);
         pred.setToolTipText("Time speed");
+        pred.setValue(maxDelay - initDelay);
         pred.addChangeListener(this);
-        pred.setValue(maxDelay - timer.getDelay());
 
         drawType = new JComboBox<PointStates>(Point.types);
         drawType.addActionListener(this);
         drawType.setActionCommand("drawType");
 
+        steppingMode = new JComboBox<SteppingMode>(SteppingMode.values());
+        steppingMode.setToolTipText("Cells visited on every iteration");
+        steppingMode.addActionListener(this);
+        steppingMode.setActionCommand("steppingMode");
+
         buttonPanel.add(restart);
         buttonPanel.add(regenerateMap);
         buttonPanel.add(loadMap);
         buttonPanel.add(saveMap);
         buttonPanel.add(start);
+        buttonPanel.add(step);
         buttonPanel.add(clear);
+        buttonPanel.add(record);
+        buttonPanel.add(openReplay);
+        buttonPanel.add(timings);
         buttonPanel.add(pred);
         buttonPanel.add(drawType);
+        buttonPanel.add(steppingMode);
 
         // Point Stats Panel
         pointStatsPanel = new JPanel();
         pointStatsPanel.setPreferredSize(new Dimension(200, 600));
-        pointStatsPanel.setLayout(new BorderLayout());
+        pointStatsCards = new CardLayout();
+        pointStatsPanel.setLayout(pointStatsCards);
         initialMessageLabel = new JLabel("<html><div style='text-align: center;'>Move the mouse over the board to see stats</div></html>", SwingConstants.CENTER);
         initialMessageLabel.setFont(new Font("SansSerif", Font.BOLD, 14));
         initialMessageLabel.setVerticalAlignment(SwingConstants.CENTER);
-        pointStatsPanel.add(initialMessageLabel, BorderLayout.CENTER);
-
-        board = new Board(this, 1400, 1200 - buttonPanel.getHeight(), boardConfig);
+        pointStatsPanel.add(initialMessageLabel, "message");
+
+        // created once and updated in place, the rows are the same for every point
+        Object[][] pointData = {
+                {"Coordinates", ""},
+                {"Elevation", ""},
+                {"Litter", ""},
+                {"Floor", ""},
+                {"Understory", ""},
+                {"Coniferous", ""},
+                {"Deciduous", ""},
+                {"Height", ""},
+                {"Fire Source", ""},
+                {"Humidity", ""},
+                {"Current State", ""},
+                {"States", ""},
+                {"Temperatures", ""},
+                {"On Fire", ""}
+        };
+        pointStatsModel = new DefaultTableModel(pointData, new String[]{"Property", "Value"}) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        pointStatsTable = new JTable(pointStatsModel);
+        pointStatsTable.setFont(statsFont);
+        pointStatsTable.setFillsViewportHeight(true);
+        pointStatsTable.getColumnModel().getColumn(1).setCellRenderer(new TextAreaRenderer());
+        pointStatsPanel.add(new JScrollPane(pointStatsTable), "table");
+        pointStatsCards.show(pointStatsPanel, "message");
+
+        // the board starts out around the map and grows with the window
+        board = new Board(this, boardConfig.mapWidth() + 2 * SimulationEngine.MAP_OFFSET_X,
+                boardConfig.mapHeight() + 2 * SimulationEngine.MAP_OFFSET_Y, boardConfig, seed);
+        board.setTickDelay(initDelay);
+        board.start();
         container.add(board, BorderLayout.CENTER);
         container.add(buttonPanel, BorderLayout.SOUTH);
         container.add(pointStatsPanel, BorderLayout.WEST);
@@ -163,7 +239,8 @@ public class GUI extends JPanel implements ActionListener, ChangeListener {
                 {"Floor Fields", 0},
                 {"Understory Fields", 0},
                 {"Coniferous Fields", 0},
-                {"Deciduous Fields", 0}
+                {"Deciduous Fields", 0},
+                {"Seed", seed}
         };
         worldStatsModel = new DefaultTableModel(initialData, columnNames);
         worldStatsTable = new JTable(worldStatsModel) {
@@ -180,29 +257,27 @@ public class GUI extends JPanel implements ActionListener, ChangeListener {
         JScrollPane scrollPane = new JScrollPane(worldStatsTable);
         worldStatsPanel.add(scrollPane, BorderLayout.CENTER);
 
-        container.add(worldStatsPanel, BorderLayout.EAST);
+        timingsPanel = new TimingsPanel();
+        timingsPanel.setVisible(Instrumentation.isEnabled());
+        worldStatsPanel.add(timingsPanel, BorderLayout.SOUTH);
 
+        container.add(worldStatsPanel, BorderLayout.EAST);
 
-        burntFieldsSeries = new XYSeries("Burnt Fields");
-        burningFieldsSeries = new XYSeries("Burning Fields");
-        unaffectedFieldsSeries = new XYSeries("Unaffected Fields");
 
-        XYSeriesCollection dataset = new XYSeriesCollection();
-        dataset.addSeries(burntFieldsSeries);
-        dataset.addSeries(burningFieldsSeries);
-        dataset.addSeries(unaffectedFieldsSeries);
+        historyDataset = new HistoryDataset(board.getHistory(),
+                "Burnt Fields", "Burning Fields", "Unaffected Fields");
 
 
         JFreeChart chart = ChartFactory.createXYLineChart(
                 "Simulation Statistics",
                 "Iteration",
                 "Number of Fields",
-                dataset,
+                historyDataset,
                 PlotOrientation.VERTICAL,
                 true, true, false
         );
 
-        ChartPanel chartPanel = new ChartPanel(chart);
+        chartPanel = new ChartPanel(chart);
         chartPanel.setPreferredSize(new Dimension(800, 400));
 
 
@@ -222,147 +297,282 @@ public class GUI extends JPanel implements ActionListener, ChangeListener {
      * @see ActionListener#actionPerformed(ActionEvent)
      */
     public void actionPerformed(ActionEvent e) {
-        if (e.getSource().equals(timer)) {
-            iterNum++;
-            frame.setTitle("Forest Fire Simulation (" + Integer.toString(iterNum) + " iteration)");
-            board.iteration();
-            boardStatsChanged(board.toBoardStatistics());
-        } else {
-            String command = e.getActionCommand();
-            JFileChooser fileChooser = new JFileChooser();
-            switch (command) {
-                case "Start":
-                    if (!running) {
-                        timer.start();
-                        start.setText("Pause");
-                    } else {
-                        timer.stop();
-                        start.setText("Start");
+        String command = e.getActionCommand();
+        JFileChooser fileChooser = new JFileChooser();
+        switch (command) {
+            case "Start":
+                setRunning(!board.isRunning());
+                clear.setEnabled(true);
+                break;
+
+            case "step":
+                board.step();
+                break;
+
+            case "clear":
+                setRunning(false);
+                start.setEnabled(true);
+                board.clear();
+                frame.setTitle("Cellular Automata Toolbox");
+                break;
+
+            case "restart":
+                board.shutdown();
+                new StartScreen();
+                frame.dispose();
+                break;
+
+            case "drawType":
+                board.editType = PointStates.fromDescription(drawType.getSelectedItem().toString());
+                break;
+
+            case "steppingMode":
+                board.setSteppingMode((SteppingMode) steppingMode.getSelectedItem());
+                break;
+
+            case "regenerateMap":
+                board.regenerateMap();
+                break;
+
+            case "loadMap":
+                int option = fileChooser.showOpenDialog(this);
+                if (option == JFileChooser.APPROVE_OPTION) {
+                    File file = fileChooser.getSelectedFile();
+                    if (BinaryMapAdapter.isBinaryMap(file.toPath())) {
+                        loadBinaryMap(file);
+                        break;
                     }
-                    running = !running;
-                    clear.setEnabled(true);
+                    runWithProgress("Loading map", (engine, progress) -> {
+                                engine.clear();
+                                MapShapeAdapter.readMap(file.toPath(), engine::updatePoint, progress);
+                            },
+                            "Map loaded successfully.", "Error loading map: ");
+                }
+                break;
+
+            case "record":
+                if (!record.isSelected()) {
+                    board.stopRecording();
                     break;
-
-                case "clear":
-                    iterNum = 0;
-                    timer.stop();
-                    start.setEnabled(true);
-                    board.clear();
-                    frame.setTitle("Cellular Automata Toolbox");
-                    break;
-
-                case "restart":
-                    new StartScreen();
-                    frame.dispose();
+                }
+                fileChooser.setDialogTitle("Save Replay File");
+                if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+                    record.setSelected(false);
                     break;
+                }
+                File replayFile = fileChooser.getSelectedFile();
+                if (!replayFile.getName().endsWith(ReplayRecorder.EXTENSION)) {
+                    replayFile = new File(replayFile + ReplayRecorder.EXTENSION);
+                }
+                board.startRecording(replayFile.toPath());
+                break;
+
+            case "timings":
+                Instrumentation.reset();
+                Instrumentation.setEnabled(timings.isSelected());
+                timingsPanel.setVisible(timings.isSelected());
+                worldStatsPanel.revalidate();
+                break;
+
+            case "openReplay":
+                if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                    try {
+                        ReplayPlayer player = ReplayPlayer.open(fileChooser.getSelectedFile().toPath());
+                        new ReplayViewer(player, board.getBoardConfig().size()).setVisible(true);
+                    } catch (IOException exception) {
+                        JOptionPane.showMessageDialog(this, "Error opening replay: " + exception.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+                break;
+
+            case "saveMap":
+                fileChooser.setDialogTitle("Save Map File");
+                fileChooser.setAcceptAllFileFilterUsed(false);
+
+                int userSelection = fileChooser.showSaveDialog(null);
+                if (userSelection == JFileChooser.APPROVE_OPTION) {
+                    File fileToSave = fileChooser.getSelectedFile();
+                    if (BinaryMapAdapter.isBinaryMap(fileToSave.toPath())) {
+                        saveBinaryMap(fileToSave);
+                        break;
+                    }
+                    if (!fileToSave.getAbsolutePath().endsWith(".json") && !MapShapeAdapter.isCompressed(fileToSave.toPath())) {
+                        fileToSave = new File(fileToSave + ".json");
+                    }
+                    Path path = fileToSave.toPath();
+                    runWithProgress("Saving map", (engine, progress) -> MapShapeAdapter.writeMap(engine.getGrid(), path, progress),
+                            "Map saved successfully.", "Error saving map: ");
+                }
+                break;
+        }
+    }
 
-                case "drawType":
-                    board.editType = PointStates.fromDescription(drawType.getSelectedItem().toString());
-                    break;
+    private void setRunning(boolean running) {
+        board.setRunning(running);
+        start.setText(running ? "Pause" : "Start");
+    }
 
-                case "regenerateMap":
-                    board.regenerateMap();
-                    break;
+    // the seed of a regenerated map, so it can be given to the start screen or the headless runner again
+    public void seedChanged(long seed) {
+        worldStatsModel.setValueAt(seed, 8, 1);
+    }
 
-                case "loadMap":
-                    int option = fileChooser.showOpenDialog(this);
-                    if (option == JFileChooser.APPROVE_OPTION) {
-                        File file = fileChooser.getSelectedFile();
-                        try (Reader reader = new FileReader(file)) {
-                            Gson gson = new GsonBuilder()
-                                    .registerTypeAdapter(PointJson.class, createPointJsonDeserializer())
-                                    .create();
-                            PointJson[] pointJsons = gson.fromJson(reader, PointJson[].class);
-                            board.updatePointsFromJson(pointJsons);
-
-                            JOptionPane.showMessageDialog(this, "Map loaded successfully.");
-                        } catch (IOException exception) {
-                            JOptionPane.showMessageDialog(this, "Error loading map: " + exception.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                        }
-                    }
-                    break;
+    public void recordingStopped(String message) {
+        record.setSelected(false);
+        JOptionPane.showMessageDialog(this, message);
+    }
 
-                case "saveMap":
-                    Point[][] points = board.getPoints();
-                    fileChooser.setDialogTitle("Save Map File");
-                    fileChooser.setAcceptAllFileFilterUsed(false);
-
-                    int userSelection = fileChooser.showSaveDialog(null);
-                    if (userSelection == JFileChooser.APPROVE_OPTION) {
-                        File fileToSave = fileChooser.getSelectedFile();
-                        if (!fileToSave.getAbsolutePath().endsWith(".json")) {
-                            fileToSave = new File(fileToSave + ".json");
-                        }
-                        MapShapeAdapter.saveMap(points, fileToSave.getAbsolutePath());
-                    }
-                    break;
-            }
+    /**
+     * Shows an error of the simulation thread, which skipped the failing command or paused on the failing tick
+     */
+    public void simulationFailed(RuntimeException exception) {
+        start.setText(board.isRunning() ? "Pause" : "Start");
+        if (showingSimulationError) {
+            return;
         }
+        showingSimulationError = true;
+        JOptionPane.showMessageDialog(this, "Simulation error: " + exception, "Error", JOptionPane.ERROR_MESSAGE);
+        showingSimulationError = false;
     }
 
-    private JsonDeserializer<PointJson> createPointJsonDeserializer() {
-        return (json, typeOfT, context) -> new PointJson(
-                json.getAsJsonObject().get("x").getAsInt(),
-                json.getAsJsonObject().get("y").getAsInt(),
-                json.getAsJsonObject().get("elevation").getAsInt(),
-                json.getAsJsonObject().get("height").getAsFloat(),
-                PointStates.fromDescription(json.getAsJsonObject().get("currentState").getAsString())
-        );
+    private interface MapTask {
+        void run(SimulationEngine engine, DoubleConsumer progress) throws IOException;
     }
 
     /**
-     * slider to control simulation speed
-     *
-     * @see ChangeListener#stateChanged(ChangeEvent)
+     * Runs a JSON map load or save on the simulation thread with a progress dialog.
+     * The clock is paused and the controls and board are disabled until it finishes.
      */
-    public void stateChanged(ChangeEvent e) {
-        timer.setDelay(maxDelay - pred.getValue());
+    private void runWithProgress(String title, MapTask task, String doneMessage, String errorMessage) {
+        setRunning(false);
+        setMapControlsEnabled(false);
+
+        ProgressMonitor monitor = new ProgressMonitor(this, title, null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        board.submit(engine -> {
+            String message = doneMessage;
+            int messageType = JOptionPane.INFORMATION_MESSAGE;
+            try {
+                task.run(engine, progress -> SwingUtilities.invokeLater(() -> monitor.setProgress((int) (progress * 100))));
+            } catch (IOException | RuntimeException exception) {
+                message = errorMessage + exception.getMessage();
+                messageType = JOptionPane.ERROR_MESSAGE;
+            }
+            showTaskResult(monitor, message, messageType);
+        });
     }
 
-    public void pointStatsChanged(Point point, int x, int y) {
-        pointStatsPanel.removeAll();
-
-        PointStatistics stats = point.toPointStatistics(x, y);
+    private void showTaskResult(ProgressMonitor monitor, String message, int messageType) {
+        SwingUtilities.invokeLater(() -> {
+            if (monitor != null) {
+                monitor.close();
+            }
+            setMapControlsEnabled(true);
+            String title = switch (messageType) {
+                case JOptionPane.ERROR_MESSAGE -> "Error";
+                case JOptionPane.WARNING_MESSAGE -> "Warning";
+                default -> "Message";
+            };
+            JOptionPane.showMessageDialog(this, message, title, messageType);
+        });
+    }
 
-        String[] columnNames = {"Property", "Value"};
-        Object[][] data = {
-                {"Coordinates", "(" + stats.pointX() + ", " + stats.pointY() + ")"},
-                {"Elevation", stats.elevation()},
-                {"Litter", stats.litter()},
-                {"Floor", stats.floor()},
-                {"Understory", stats.understory()},
-                {"Coniferous", stats.coniferous()},
-                {"Deciduous", stats.deciduous()},
-                {"Height", formatDecimal(stats.height())},
-                {"Fire Source", stats.fireSource()},
-                {"Humidity", formatDecimal(stats.humidity())},
-                {"Current State", stats.currentState()},
-                {"States", listToString(stats.state())},
-                {"Temperatures", listToString(stats.temperature())},
-                {"On Fire", listToString(stats.onFire())}
-        };
+    private void setMapControlsEnabled(boolean enabled) {
+        board.setEnabled(enabled);
+        loadMap.setEnabled(enabled);
+        saveMap.setEnabled(enabled);
+        regenerateMap.setEnabled(enabled);
+        start.setEnabled(enabled);
+        step.setEnabled(enabled);
+        clear.setEnabled(enabled);
+    }
 
-        DefaultTableModel model = new DefaultTableModel(data, columnNames);
-        JTable statsTable = new JTable(model) {
-            public Component prepareRenderer(javax.swing.table.TableCellRenderer renderer, int row, int column) {
-                return super.prepareRenderer(renderer, row, column);
+    private void loadBinaryMap(File file) {
+        long configHash = BinaryMapAdapter.configHash(board.getBoardConfig());
+        setMapControlsEnabled(false);
+        board.submit(engine -> {
+            try {
+                engine.clear();
+                MapHeader header = BinaryMapAdapter.readMap(file.toPath(), engine.getGrid());
+                if (header.configHash() != configHash) {
+                    showTaskResult(null, "Map loaded, it was saved with different simulation parameters.", JOptionPane.WARNING_MESSAGE);
+                } else {
+                    showTaskResult(null, "Map loaded successfully.", JOptionPane.INFORMATION_MESSAGE);
+                }
+            } catch (IOException | RuntimeException exception) {
+                showTaskResult(null, "Error loading map: " + exception.getMessage(), JOptionPane.ERROR_MESSAGE);
             }
-        };
-        statsTable.setFont(statsFont);
-        statsTable.setFillsViewportHeight(true);
+        });
+    }
 
-        statsTable.getColumnModel().getColumn(1).setCellRenderer(new TextAreaRenderer());
+    private void saveBinaryMap(File file) {
+        setMapControlsEnabled(false);
+        board.submit(engine -> {
+            try {
+                BinaryMapAdapter.writeMap(engine.getGrid(), file.toPath());
+                showTaskResult(null, "Map saved successfully.", JOptionPane.INFORMATION_MESSAGE);
+            } catch (IOException exception) {
+                showTaskResult(null, "Error saving map: " + exception.getMessage(), JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
 
-        adjustRowHeights(statsTable);
+    /**
+     * slider to control simulation speed
+     *
+     * @see ChangeListener#stateChanged(ChangeEvent)
+     */
+    public void stateChanged(ChangeEvent e) {
+        board.setTickDelay(maxDelay - pred.getValue());
+    }
 
-        JScrollPane scrollPane = new JScrollPane(statsTable);
-        pointStatsPanel.add(scrollPane, BorderLayout.CENTER);
+    /**
+     * Shows the tracked point of a published frame, frames only carry new statistics when the point changed
+     * so an unchanged point costs nothing
+     */
+    public void pointStatsChanged(PointStatistics stats) {
+        if (stats == shownPointStatistics) {
+            return;
+        }
+        if (shownPointStatistics == null) {
+            pointStatsCards.show(pointStatsPanel, "table");
+        }
+        shownPointStatistics = stats;
+
+        setPointStat(0, "(" + stats.pointX() + ", " + stats.pointY() + ")");
+        setPointStat(1, stats.elevation());
+        setPointStat(2, stats.litter());
+        setPointStat(3, stats.floor());
+        setPointStat(4, stats.understory());
+        setPointStat(5, stats.coniferous());
+        setPointStat(6, stats.deciduous());
+        setPointStat(7, formatDecimal(stats.height()));
+        setPointStat(8, stats.fireSource());
+        setPointStat(9, formatDecimal(stats.humidity()));
+        setPointStat(10, stats.currentState());
+        setPointStat(11, levelsToString(stats.state()));
+        setPointStat(12, levelsToString(stats.temperature()));
+        setPointStat(13, levelsToString(stats.onFire()));
+
+        // every point has the same number of lines per row
+        if (!pointStatsRowHeights) {
+            pointStatsRowHeights = true;
+            adjustRowHeights(pointStatsTable);
+        }
+    }
 
-        pointStatsPanel.revalidate();
-        pointStatsPanel.repaint();
+    // only changed cells are set, each set repaints its cell
+    private void setPointStat(int row, Object value) {
+        if (!value.equals(pointStatsModel.getValueAt(row, 1))) {
+            pointStatsModel.setValueAt(value, row, 1);
+        }
     }
 
-    public void boardStatsChanged(BoardStatistics stats) {
+    /**
+     * Shows the statistics of a published frame, the chart is brought up to date with the history of the board
+     * with a minimum and a maximum per pixel column
+     */
+    public void boardStatsChanged(long iterations, BoardStatistics stats) {
         worldStatsModel.setValueAt(stats.allFields(), 0, 1);
         worldStatsModel.setValueAt(stats.burntFields(), 1, 1);
         worldStatsModel.setValueAt(stats.fireFields(), 2, 1);
@@ -372,19 +582,25 @@ public class GUI extends JPanel implements ActionListener, ChangeListener {
         worldStatsModel.setValueAt(stats.coniferousFields(), 6, 1);
         worldStatsModel.setValueAt(stats.deciduousFields(), 7, 1);
 
-        int currentIteration = iterNum;
-        burntFieldsSeries.add(currentIteration, stats.burntFields());
-        burningFieldsSeries.add(currentIteration, stats.fireFields());
-        unaffectedFieldsSeries.add(currentIteration, stats.allFields() - stats.burntFields());
-
         adjustRowHeights(worldStatsTable);
+
+        if (iterations != iterNum) {
+            iterNum = iterations;
+            if (iterations > 0) {
+                frame.setTitle("Forest Fire Simulation (" + iterations + " iteration)");
+            }
+        }
+        historyDataset.refresh(2 * Math.max(chartPanel.getWidth(), 1));
+        if (timingsPanel.isVisible()) {
+            timingsPanel.refresh();
+        }
     }
 
     public void showInitialMessage() {
-        pointStatsPanel.removeAll();
-        pointStatsPanel.add(initialMessageLabel, BorderLayout.CENTER);
-        pointStatsPanel.revalidate();
-        pointStatsPanel.repaint();
+        if (shownPointStatistics != null) {
+            shownPointStatistics = null;
+            pointStatsCards.show(pointStatsPanel, "message");
+        }
     }
 
     private void adjustRowHeights(JTable table) {
@@ -400,10 +616,21 @@ public class GUI extends JPanel implements ActionListener, ChangeListener {
         return decimalFormat.format(value);
     }
 
-    private String listToString(List<?> list) {
+    private String levelsToString(float[] levels) {
+        StringBuilder sb = new StringBuilder();
+        for (float level : levels) {
+            sb.append(level).append("\n");
+        }
+        if (!sb.isEmpty()) {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString();
+    }
+
+    private String levelsToString(boolean[] levels) {
         StringBuilder sb = new StringBuilder();
-        for (Object item : list) {
-            sb.append(item.toString()).append("\n");
+        for (boolean level : levels) {
+            sb.append(level).append("\n");
         }
         if (!sb.isEmpty()) {
             sb.setLength(sb.length() - 1);
@@ -0,0 +1,440 @@
+package simulation;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import simulation.adapters.BinaryMapAdapter;
+import simulation.adapters.BoardConfigAdapter;
+import simulation.adapters.BoardStatisticsAdapter;
+import simulation.adapters.MapShapeAdapter;
+import simulation.engine.Checkpointer;
+import simulation.engine.Distribution;
+import simulation.engine.Ensemble;
+import simulation.engine.SimulationEngine;
+import simulation.engine.GridStorage;
+import simulation.engine.SteppingMode;
+import simulation.instrumentation.Instrumentation;
+import simulation.instrumentation.Phase;
+import simulation.records.BoardConfig;
+import simulation.records.BoardStatistics;
+import simulation.records.EnsembleResult;
+import simulation.records.MapHeader;
+import simulation.records.PhaseTiming;
+import simulation.replay.ReplayRecorder;
+
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs a simulation without Swing, for batch jobs on machines without a display
+ */
+public class HeadlessRunner {
+    private static final String USAGE = """
+            Usage: HeadlessRunner --config <config.json> --ticks <n> [options]
+                   HeadlessRunner --restore <full.ffck>[,<incremental.ffck>...] --ticks <n> [options]
+              --map <map.json|.ffmap> map saved from the GUI, replaces the generated one
+              --seed <long>           random seed, random when omitted
+              --mode <mode>           FULL_SCAN, FRONTIER (default, or the one of the checkpoint) or PARALLEL
+              --width <cells>         grid width, defaults to fit the map
+              --height <cells>        grid height, defaults to fit the map
+              --storage <storage>     HEAP (default) or OFF_HEAP, where the cells are kept
+              --fire <x,y>            adds a fire source, may be repeated
+              --stats <file>          final statistics, stdout when omitted
+              --grid <file>           final grid with the burnt/burning state of every cell
+              --replicas <n>          runs a Monte Carlo ensemble of n replicas instead of a single run
+              --raster <file>         ensemble burn probability and mean arrival tick of every cell
+              --checkpoint-every <n>  writes a checkpoint every n ticks and at the end, every tenth one full
+              --checkpoint-dir <dir>  directory for the checkpoints, the working directory when omitted
+              --restore <files>       continues from a full checkpoint and the incremental ones after it, in order
+              --replay <file>         records what the board would show after every tick, for the GUI replay viewer
+              --timings               adds the time spent in every phase of the ticks to the statistics
+            """;
+
+    private String configPath;
+    private String mapPath;
+    private long seed = new Random().nextLong();
+    private int ticks = -1;
+    private SteppingMode mode;
+    private int width = -1;
+    private int height = -1;
+    private GridStorage storage = GridStorage.HEAP;
+    private final List<int[]> fireSources = new ArrayList<>();
+    private String statsPath;
+    private String gridPath;
+    private int replicas = 0;
+    private String rasterPath;
+    private int checkpointEvery = 0;
+    private String checkpointDir = ".";
+    private List<String> restorePaths = List.of();
+    private String replayPath;
+
+    private static final int FULL_CHECKPOINT_INTERVAL = 10;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        HeadlessRunner runner = new HeadlessRunner();
+        try {
+            runner.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        try {
+            runner.run();
+        } catch (IllegalArgumentException e) {
+            // arguments that only turn out wrong against the grid, like a fire source outside of it
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--timings")) {
+                Instrumentation.setEnabled(true);
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--config" -> configPath = value;
+                case "--map" -> mapPath = value;
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--ticks" -> ticks = Integer.parseInt(value);
+                case "--mode" -> mode = SteppingMode.valueOf(value.toUpperCase());
+                case "--width" -> width = Integer.parseInt(value);
+                case "--height" -> height = Integer.parseInt(value);
+                case "--storage" -> storage = GridStorage.valueOf(value.toUpperCase().replace('-', '_'));
+                case "--fire" -> {
+                    String[] coordinates = value.split(",");
+                    if (coordinates.length != 2) {
+                        throw new IllegalArgumentException("Fire source must be given as x,y: " + value);
+                    }
+                    fireSources.add(new int[]{Integer.parseInt(coordinates[0].trim()), Integer.parseInt(coordinates[1].trim())});
+                }
+                case "--stats" -> statsPath = value;
+                case "--grid" -> gridPath = value;
+                case "--replicas" -> replicas = Integer.parseInt(value);
+                case "--raster" -> rasterPath = value;
+                case "--checkpoint-every" -> checkpointEvery = Integer.parseInt(value);
+                case "--checkpoint-dir" -> checkpointDir = value;
+                case "--restore" -> restorePaths = List.of(value.split(","));
+                case "--replay" -> replayPath = value;
+                default -> throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+
+        if (configPath == null && restorePaths.isEmpty()) {
+            throw new IllegalArgumentException("--config or --restore is required");
+        }
+        if (!restorePaths.isEmpty() && (configPath != null || mapPath != null)) {
+            throw new IllegalArgumentException("--restore takes the parameters and the map from the checkpoint");
+        }
+        if (checkpointEvery > 0 && replicas > 0) {
+            throw new IllegalArgumentException("--checkpoint-every is not available for ensembles");
+        }
+        if (replayPath != null && replicas > 0) {
+            throw new IllegalArgumentException("--replay is not available for ensembles");
+        }
+        if (ticks < 0) {
+            throw new IllegalArgumentException("--ticks is required");
+        }
+        if (!storage.isAvailable()) {
+            throw new IllegalArgumentException("--storage " + storage.name() + " needs a Java 21 JVM started with --enable-preview");
+        }
+        if (replicas > 0 && gridPath != null) {
+            throw new IllegalArgumentException("--grid is not available for ensembles, use --raster");
+        }
+        if (replicas <= 0 && rasterPath != null) {
+            throw new IllegalArgumentException("--raster needs --replicas");
+        }
+    }
+
+    private void run() throws IOException {
+        SimulationEngine engine = restorePaths.isEmpty() ? createEngine() : restoreEngine();
+        if (mode != null) {
+            engine.setSteppingMode(mode);
+        }
+        for (int[] fire : fireSources) {
+            if (!engine.getGrid().contains(fire[0], fire[1])) {
+                throw new IllegalArgumentException("Fire source outside of the grid: " + fire[0] + "," + fire[1]);
+            }
+            engine.edit(fire[0], fire[1], PointStates.FIRE);
+        }
+
+        if (replicas > 0) {
+            runEnsemble(engine);
+            return;
+        }
+
+        long start = System.nanoTime();
+        if (checkpointEvery > 0 || replayPath != null) {
+            runRecorded(engine);
+        } else {
+            engine.run(ticks);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        writeStatistics(engine, elapsed);
+        if (gridPath != null) {
+            try (Writer writer = new BufferedWriter(new FileWriter(gridPath))) {
+                MapShapeAdapter.writeMap(engine.getGrid(), writer, true);
+            }
+        }
+    }
+
+    private SimulationEngine createEngine() throws IOException {
+        BoardConfig config = readConfig();
+        boolean binaryMap = mapPath != null && BinaryMapAdapter.isBinaryMap(Path.of(mapPath));
+        boolean jsonMap = mapPath != null && !binaryMap;
+
+        int length = width > 0 ? width : config.mapWidth() + 2 * SimulationEngine.MAP_OFFSET_X;
+        int boardHeight = height > 0 ? height : config.mapHeight() + 2 * SimulationEngine.MAP_OFFSET_Y;
+        if (jsonMap && (width <= 0 || height <= 0)) {
+            // extra streaming pass so the map never has to be held in memory
+            int[] extent = {length, boardHeight};
+            MapShapeAdapter.readMap(Path.of(mapPath), (x, y, elevation, pointHeight, state) -> {
+                extent[0] = Math.max(extent[0], x + 1);
+                extent[1] = Math.max(extent[1], y + 1);
+            }, progress -> {
+            });
+            if (width <= 0) length = extent[0];
+            if (height <= 0) boardHeight = extent[1];
+        }
+        if (binaryMap) {
+            MapHeader header = BinaryMapAdapter.readHeader(Path.of(mapPath));
+            if (width <= 0) length = header.width();
+            if (height <= 0) boardHeight = header.height();
+        }
+
+        SimulationEngine engine = new SimulationEngine(length, boardHeight, config, seed, storage);
+        engine.setSteppingMode(SteppingMode.FRONTIER);
+        if (jsonMap) {
+            engine.clear();
+            MapShapeAdapter.readMap(Path.of(mapPath), engine::updatePoint, progress -> {
+            });
+        }
+        if (binaryMap) {
+            engine.clear();
+            MapHeader header = BinaryMapAdapter.readMap(Path.of(mapPath), engine.getGrid());
+            if (header.configHash() != BinaryMapAdapter.configHash(config)) {
+                System.err.println("Warning: map was saved with different simulation parameters");
+            }
+        }
+        return engine;
+    }
+
+    private SimulationEngine restoreEngine() throws IOException {
+        List<InputStream> chain = new ArrayList<>();
+        try {
+            for (String path : restorePaths) {
+                chain.add(Files.newInputStream(Path.of(path.trim())));
+            }
+            return Checkpointer.restore(chain, storage);
+        } finally {
+            for (InputStream in : chain) {
+                in.close();
+            }
+        }
+    }
+
+    // steps with checkpoints and/or a replay recording
+    private void runRecorded(SimulationEngine engine) throws IOException {
+        Checkpointer checkpointer = new Checkpointer(engine);
+        if (checkpointEvery > 0) {
+            Files.createDirectories(Path.of(checkpointDir));
+        }
+        ReplayRecorder recorder = null;
+        if (replayPath != null) {
+            recorder = new ReplayRecorder(Path.of(replayPath), engine.getGrid().width(), engine.getGrid().height(),
+                    ReplayRecorder.DEFAULT_KEYFRAME_INTERVAL);
+            recorder.record(engine.getGrid());
+        }
+        try {
+            for (int i = 0; i < ticks; i++) {
+                if (checkpointEvery > 0 && i % checkpointEvery == 0) {
+                    checkpoint(engine, checkpointer, i % (checkpointEvery * FULL_CHECKPOINT_INTERVAL) == 0);
+                }
+                engine.step();
+                if (recorder != null) {
+                    recorder.record(engine.getGrid());
+                }
+            }
+            // the state the run ends in, to continue from or compare with
+            if (checkpointEvery > 0) {
+                checkpoint(engine, checkpointer, ticks % (checkpointEvery * FULL_CHECKPOINT_INTERVAL) == 0);
+            }
+        } finally {
+            if (recorder != null) {
+                recorder.close();
+            }
+        }
+    }
+
+    // checkpoints are named after the tick they were taken at
+    private void checkpoint(SimulationEngine engine, Checkpointer checkpointer, boolean full) throws IOException {
+        String name = String.format("checkpoint-%08d-%s%s", engine.getTick(), full ? "full" : "incremental", Checkpointer.EXTENSION);
+        try (OutputStream out = Files.newOutputStream(Path.of(checkpointDir, name))) {
+            checkpointer.checkpoint(out, full);
+        }
+    }
+
+    private void runEnsemble(SimulationEngine engine) throws IOException {
+        long start = System.nanoTime();
+        EnsembleResult result = new Ensemble(engine.getGrid(), replicas, ticks, engine.getSeed()).run(ForkJoinPool.commonPool());
+        long elapsed = System.nanoTime() - start;
+
+        Writer out = statsPath != null ? new FileWriter(statsPath) : new OutputStreamWriter(System.out);
+        try {
+            JsonWriter writer = new JsonWriter(out);
+            writer.setIndent("  ");
+            writer.beginObject();
+            writer.name("seed").value(engine.getSeed());
+            writer.name("replicas").value(result.replicas());
+            writer.name("ticks").value(result.ticks());
+            writer.name("width").value(result.width());
+            writer.name("height").value(result.height());
+            writer.name("elapsedMillis").value(elapsed / 1_000_000);
+            writer.name("statistics").beginObject();
+            for (Map.Entry<String, Distribution> field : result.statistics().entrySet()) {
+                Distribution distribution = field.getValue();
+                writer.name(field.getKey()).beginObject();
+                writer.name("mean").value(distribution.mean());
+                writer.name("standardDeviation").value(distribution.standardDeviation());
+                writer.name("min").value(distribution.min());
+                writer.name("median").value(distribution.quantile(0.5));
+                writer.name("p90").value(distribution.quantile(0.9));
+                writer.name("max").value(distribution.max());
+                writer.name("binWidth").value(distribution.binWidth());
+                writer.name("histogram").beginArray();
+                for (long count : distribution.histogram()) {
+                    writer.value(count);
+                }
+                writer.endArray();
+                writer.endObject();
+            }
+            writer.endObject();
+            writeTimings(writer);
+            writer.endObject();
+            writer.flush();
+            out.write(System.lineSeparator());
+        } finally {
+            if (statsPath != null) {
+                out.close();
+            } else {
+                out.flush();
+            }
+        }
+
+        if (rasterPath != null) {
+            try (Writer raster = new BufferedWriter(new FileWriter(rasterPath))) {
+                writeRaster(result, raster);
+            }
+        }
+    }
+
+    private void writeRaster(EnsembleResult result, Writer out) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginObject();
+        writer.name("width").value(result.width());
+        writer.name("height").value(result.height());
+        writer.name("replicas").value(result.replicas());
+        writer.name("burnProbability").beginArray();
+        for (float probability : result.burnProbability()) {
+            writer.value(probability);
+        }
+        writer.endArray();
+        writer.name("meanArrivalTick").beginArray();
+        for (float arrival : result.meanArrivalTick()) {
+            if (Float.isNaN(arrival)) {
+                writer.nullValue();
+            } else {
+                writer.value(arrival);
+            }
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+    }
+
+    private BoardConfig readConfig() throws IOException {
+        try (Reader reader = new FileReader(configPath)) {
+            Gson gson = new GsonBuilder()
+                    .registerTypeAdapter(BoardConfig.class, new BoardConfigAdapter())
+                    .create();
+            return gson.fromJson(reader, BoardConfig.class);
+        }
+    }
+
+    private void writeStatistics(SimulationEngine engine, long elapsedNanos) throws IOException {
+        BoardStatistics stats = engine.toBoardStatistics();
+        Writer out = statsPath != null ? new FileWriter(statsPath) : new OutputStreamWriter(System.out);
+        try {
+            JsonWriter writer = new JsonWriter(out);
+            writer.setIndent("  ");
+            writer.beginObject();
+            writer.name("seed").value(engine.getSeed());
+            writer.name("ticks").value(engine.getTick());
+            writer.name("mode").value(engine.getSteppingMode().name());
+            writer.name("width").value(engine.getGrid().width());
+            writer.name("height").value(engine.getGrid().height());
+            writer.name("elapsedMillis").value(elapsedNanos / 1_000_000);
+            writer.name("statistics");
+            new BoardStatisticsAdapter().write(writer, stats);
+            writeTimings(writer);
+            writer.endObject();
+            writer.flush();
+            out.write(System.lineSeparator());
+        } finally {
+            if (statsPath != null) {
+                out.close();
+            } else {
+                out.flush();
+            }
+        }
+    }
+
+    // phases run at least once, when --timings was given
+    private static void writeTimings(JsonWriter writer) throws IOException {
+        if (!Instrumentation.isEnabled()) {
+            return;
+        }
+        writer.name("timings").beginObject();
+        for (Phase phase : Phase.values()) {
+            PhaseTiming timing = Instrumentation.timing(phase);
+            if (timing.calls() == 0) {
+                continue;
+            }
+            writer.name(phase.name().toLowerCase()).beginObject();
+            writer.name("calls").value(timing.calls());
+            writer.name("totalMillis").value(timing.totalNanos() / 1e6);
+            writer.name("meanMillis").value(timing.meanNanos() / 1e6);
+            writer.endObject();
+        }
+        writer.endObject();
+    }
+}
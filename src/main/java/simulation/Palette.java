@@ -0,0 +1,55 @@
+package simulation;
+
+import simulation.engine.VisibleState;
+
+/**
+ * RGB colours of the visible cell states, the same the board draws cells with
+ */
+public final class Palette {
+    // empty cells are not filled, the board background shows through
+    public static final int EMPTY = 0xffffff;
+    public static final int NETTING = 0x808080;
+    // beyond the edges of the board when zoomed out or panned away
+    public static final int OUTSIDE = 0xc8c8c8;
+    public static final int BURNT = 0x333333;
+
+    private static final int[] RGB = new int[VisibleState.CODES];
+
+    static {
+        for (int code = 0; code < VisibleState.CODES; code++) {
+            RGB[code] = compute((byte) code);
+        }
+    }
+
+    private Palette() {
+    }
+
+    public static int rgb(byte visibleState) {
+        return RGB[visibleState & (VisibleState.CODES - 1)];
+    }
+
+    private static int compute(byte code) {
+        PointStates type = VisibleState.type(code);
+        if (type == PointStates.NO_FIRE || type == PointStates.FIRE) {
+            return EMPTY;
+        }
+        switch (VisibleState.fireBucket(code)) {
+            case VisibleState.FIRE_RED:
+                return 0xff0000;
+            case VisibleState.FIRE_ORANGE:
+                return 0xffa500;
+            case VisibleState.FIRE_GOLD:
+                return 0xffd700;
+        }
+        if (VisibleState.isBurnt(code)) {
+            return BURNT;
+        }
+        return switch (type) {
+            case LITTER -> 0x59350e;
+            case FLOOR -> 0x9c6427;
+            case UNDERSTORY -> 0xadd962;
+            case CONIFEROUS -> 0x364f0d;
+            default -> 0x6aa60a;
+        };
+    }
+}
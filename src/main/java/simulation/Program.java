@@ -10,12 +10,12 @@ public class Program extends JFrame {
     private static final long serialVersionUID = 1L;
     private GUI gof;
 
-    public Program(BoardConfig boardConfig) {
+    public Program(BoardConfig boardConfig, long seed) {
         setTitle("Forest Fire Simulation");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         gof = new GUI(this);
-        gof.initialize(this.getContentPane(), boardConfig);
+        gof.initialize(this.getContentPane(), boardConfig, seed);
 
         this.setSize(1024, 768);
         this.setVisible(true);
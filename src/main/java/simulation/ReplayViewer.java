@@ -0,0 +1,127 @@
+package simulation;
+
+import simulation.replay.ReplayPlayer;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * Window playing back a recorded replay, with a slider to scrub through the frames
+ */
+public class ReplayViewer extends JFrame implements ActionListener, ChangeListener {
+    private static final long serialVersionUID = 1L;
+    private static final int FRAME_DELAY = 40;
+
+    private final transient ReplayPlayer player;
+    private final BufferedImage image;
+    private final JSlider slider;
+    private final JButton play;
+    private final JLabel frameLabel;
+    private final Timer timer;
+
+    public ReplayViewer(ReplayPlayer player, int cellSize) {
+        super("Replay");
+        this.player = player;
+        this.image = new BufferedImage(player.width(), player.height(), BufferedImage.TYPE_INT_RGB);
+
+        JComponent canvas = new JComponent() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                g.drawImage(image, 0, 0, image.getWidth() * cellSize, image.getHeight() * cellSize, null);
+            }
+        };
+        canvas.setPreferredSize(new Dimension(player.width() * cellSize, player.height() * cellSize));
+
+        slider = new JSlider(0, Math.max(player.frames() - 1, 0), 0);
+        slider.addChangeListener(this);
+        play = new JButton("Play");
+        play.addActionListener(this);
+        frameLabel = new JLabel();
+        timer = new Timer(FRAME_DELAY, this);
+
+        JPanel controls = new JPanel();
+        controls.add(play);
+        controls.add(slider);
+        controls.add(frameLabel);
+
+        setLayout(new BorderLayout());
+        add(canvas, BorderLayout.CENTER);
+        add(controls, BorderLayout.SOUTH);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                timer.stop();
+                try {
+                    player.close();
+                } catch (IOException ignored) {
+                }
+            }
+        });
+        pack();
+        showFrame(0);
+    }
+
+    private void showFrame(int frame) {
+        if (player.frames() == 0) {
+            frameLabel.setText("Empty replay");
+            return;
+        }
+        try {
+            byte[] visible = player.seek(frame);
+            int height = player.height();
+            for (int x = 0; x < player.width(); x++) {
+                for (int y = 0; y < height; y++) {
+                    image.setRGB(x, y, Palette.rgb(visible[x * height + y]));
+                }
+            }
+        } catch (IOException e) {
+            timer.stop();
+            JOptionPane.showMessageDialog(this, "Error reading replay: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        frameLabel.setText("Frame " + (frame + 1) + " / " + player.frames() + " (iteration " + player.tick(frame) + ")");
+        repaint();
+    }
+
+    public void actionPerformed(ActionEvent e) {
+        if (e.getSource() == timer) {
+            if (slider.getValue() >= slider.getMaximum()) {
+                timer.stop();
+                play.setText("Play");
+            } else {
+                slider.setValue(slider.getValue() + 1);
+            }
+        } else if (timer.isRunning()) {
+            timer.stop();
+            play.setText("Play");
+        } else {
+            if (slider.getValue() >= slider.getMaximum()) {
+                slider.setValue(0);
+            }
+            timer.start();
+            play.setText("Pause");
+        }
+    }
+
+    public void stateChanged(ChangeEvent e) {
+        showFrame(slider.getValue());
+    }
+}
@@ -6,6 +6,7 @@ import com.google.gson.GsonBuilder;
 import javax.swing.*;
 import java.awt.*;
 import java.io.*;
+import java.util.Random;
 
 public class StartScreen extends JFrame {
     @Serial
@@ -30,6 +31,7 @@ public class StartScreen extends JFrame {
     //private final JTextField maxFireTemperatureField;
     private final JTextField sizeField;
     private final JTextField pointPercentageField;
+    private final JTextField seedField;
 
     public StartScreen() {
         setTitle("Forest Fire Simulation - Start");
@@ -65,6 +67,7 @@ public class StartScreen extends JFrame {
         //maxFireTemperatureField = createField(formPanel, "Max Fire Temperature:", "1.0");
         sizeField = createField(formPanel, "Size (pixels):", "7");
         pointPercentageField = createField(formPanel, "Point Percentage:", "0.1");
+        seedField = createField(formPanel, "Seed (empty for random):", "");
 
         JButton startButton = createButton("Start Simulation", "SansSerif", 18, this::startSimulation);
         JButton saveButton = createButton("Save simulation parameters", "SansSerif", 18, this::save);
@@ -99,7 +102,10 @@ public class StartScreen extends JFrame {
     }
 
     private void save() {
-        BoardConfig config = createBoardConfigFromFields();
+        BoardConfig config = validBoardConfig();
+        if (config == null) {
+            return;
+        }
         JFileChooser fileChooser = new JFileChooser();
         int option = fileChooser.showSaveDialog(this);
         if (option == JFileChooser.APPROVE_OPTION) {
@@ -136,6 +142,17 @@ public class StartScreen extends JFrame {
         }
     }
 
+    // the parameters of the fields, or null after telling the user that one of them is not a number
+    private BoardConfig validBoardConfig() {
+        try {
+            return createBoardConfigFromFields();
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Every parameter must be a number (" + e.getMessage() + ").",
+                    "Invalid parameter", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+
     private BoardConfig createBoardConfigFromFields() {
         int mapWidth = Integer.parseInt(mapWidthField.getText());
         int mapHeight = Integer.parseInt(mapHeightField.getText());
@@ -202,9 +219,29 @@ public class StartScreen extends JFrame {
         pointPercentageField.setText(String.valueOf(config.pointPercentage()));
     }
 
+    private long createSeedFromField() {
+        String text = seedField.getText().trim();
+        if (text.isEmpty()) {
+            return new Random().nextLong();
+        }
+        return Long.parseLong(text);
+    }
+
     private void startSimulation() {
-        BoardConfig config = createBoardConfigFromFields();
-        new Program(config);
+        BoardConfig config = validBoardConfig();
+        if (config == null) {
+            return;
+        }
+        long seed;
+        try {
+            seed = createSeedFromField();
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "The seed must be a whole number, or empty for a random one.",
+                    "Invalid seed", JOptionPane.ERROR_MESSAGE);
+            seedField.requestFocusInWindow();
+            return;
+        }
+        new Program(config, seed);
         dispose();
     }
 
@@ -0,0 +1,115 @@
+package simulation;
+
+/**
+ * Which part of the board the component shows and how large. Zoomed in, every cell is a block of cellSize
+ * pixels; zoomed out past one pixel per cell, every pixel shows a block of 2^mipLevel by 2^mipLevel cells
+ * through the mip levels of {@link BoardFrame}. Both ways the component shows units of cellSize pixels,
+ * one per cell of the mip level, shifted by the pixel offset. Used on the event dispatch thread only.
+ */
+final class Viewport {
+    static final int MAX_MIP_LEVEL = 8;
+    // cell sizes zooming in steps through, the configured size is used as it is until the first step
+    private static final int[] CELL_SIZES = {1, 2, 3, 4, 5, 6, 7, 8, 10, 12, 14, 16, 20, 24, 32, 40, 48, 64};
+
+    private int cellSize;
+    private int mipLevel;
+    // board pixel at the top left corner of the component, at the current zoom
+    private int offsetX;
+    private int offsetY;
+
+    Viewport(int cellSize) {
+        this.cellSize = Math.max(cellSize, 1);
+    }
+
+    int cellSize() {
+        return cellSize;
+    }
+
+    int mipLevel() {
+        return mipLevel;
+    }
+
+    int offsetX() {
+        return offsetX;
+    }
+
+    int offsetY() {
+        return offsetY;
+    }
+
+    // unit of the mip level under a pixel of the component
+    int unitX(int pixelX) {
+        return Math.floorDiv(pixelX + offsetX, cellSize);
+    }
+
+    int unitY(int pixelY) {
+        return Math.floorDiv(pixelY + offsetY, cellSize);
+    }
+
+    // cell under a pixel of the component, the top left cell of the block when zoomed out
+    int cellX(int pixelX) {
+        return unitX(pixelX) << mipLevel;
+    }
+
+    int cellY(int pixelY) {
+        return unitY(pixelY) << mipLevel;
+    }
+
+    void pan(int dx, int dy) {
+        offsetX -= dx;
+        offsetY -= dy;
+    }
+
+    /**
+     * Zooms in by the number of steps, out when negative, keeping the point of the board under the given
+     * pixel in place
+     *
+     * @return whether the zoom changed
+     */
+    boolean zoom(int steps, int pixelX, int pixelY) {
+        int oldCellSize = cellSize;
+        int oldMipLevel = mipLevel;
+        // the point under the pixel in cells of the board
+        double boardX = (double) (pixelX + offsetX) / cellSize * (1 << mipLevel);
+        double boardY = (double) (pixelY + offsetY) / cellSize * (1 << mipLevel);
+        for (int i = 0; i < Math.abs(steps); i++) {
+            if (steps > 0) {
+                zoomIn();
+            } else {
+                zoomOut();
+            }
+        }
+        if (cellSize == oldCellSize && mipLevel == oldMipLevel) {
+            return false;
+        }
+        offsetX = (int) Math.round(boardX / (1 << mipLevel) * cellSize) - pixelX;
+        offsetY = (int) Math.round(boardY / (1 << mipLevel) * cellSize) - pixelY;
+        return true;
+    }
+
+    private void zoomIn() {
+        if (mipLevel > 0) {
+            mipLevel--;
+            return;
+        }
+        for (int size : CELL_SIZES) {
+            if (size > cellSize) {
+                cellSize = size;
+                return;
+            }
+        }
+    }
+
+    private void zoomOut() {
+        if (cellSize == 1) {
+            mipLevel = Math.min(mipLevel + 1, MAX_MIP_LEVEL);
+            return;
+        }
+        for (int i = CELL_SIZES.length - 1; i >= 0; i--) {
+            if (CELL_SIZES[i] < cellSize) {
+                cellSize = CELL_SIZES[i];
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package simulation.adapters;
+
+import simulation.engine.Grid;
+import simulation.records.BoardConfig;
+import simulation.records.MapHeader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary map format, JSON stays the import/export format.
+ * <p>
+ * Layout (little endian): a 32 byte header (magic, version, width, height, config hash, section count),
+ * a directory of sections (id, offset, length) and the sections themselves, one value per cell in grid order
+ * (x * height + y), each starting on an 8 byte boundary. Readers skip sections they do not know.
+ */
+public class BinaryMapAdapter {
+    public static final String EXTENSION = ".ffmap";
+
+    private static final int MAGIC = 0x504D4646; // "FFMP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int SECTION_COUNT_OFFSET = 24;
+    private static final int MAX_SECTIONS = 256;
+    private static final int SECTION_ENTRY_BYTES = 16;
+
+    // fuel type as PointStates ordinal, one byte per cell
+    private static final int SECTION_TYPE = 1;
+    // elevation, one int per cell
+    private static final int SECTION_ELEVATION = 2;
+    // height, one float per cell
+    private static final int SECTION_HEIGHT = 3;
+    private static final int[] SECTIONS = {SECTION_TYPE, SECTION_ELEVATION, SECTION_HEIGHT};
+    private static final int[] SECTION_VALUE_BYTES = {Byte.BYTES, Integer.BYTES, Float.BYTES};
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    public static boolean isBinaryMap(Path path) {
+        return path.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    /**
+     * Stable hash of the simulation parameters, the same across runs and JVMs
+     */
+    public static long configHash(BoardConfig config) {
+        long hash = 17;
+        hash = 31 * hash + config.mapWidth();
+        hash = 31 * hash + config.mapHeight();
+        hash = 31 * hash + Double.doubleToLongBits(config.windVelocity());
+        hash = 31 * hash + config.windDirection().name().hashCode();
+        hash = 31 * hash + Double.doubleToLongBits(config.mediumMoisture());
+        hash = 31 * hash + Double.doubleToLongBits(config.mediumMoistureVariance());
+        hash = 31 * hash + Double.doubleToLongBits(config.airTemperature());
+        hash = 31 * hash + Double.doubleToLongBits(config.coniferousBurningTemperature());
+        hash = 31 * hash + Double.doubleToLongBits(config.deciduousBurningTemperature());
+        hash = 31 * hash + Double.doubleToLongBits(config.understoryBurningTemperature());
+        hash = 31 * hash + Double.doubleToLongBits(config.floorBurningTemperature());
+        hash = 31 * hash + Double.doubleToLongBits(config.litterBurningTemperature());
+        hash = 31 * hash + Double.doubleToLongBits(config.pointPercentage());
+        return hash;
+    }
+
+    public static void writeMap(Grid grid, Path path) throws IOException {
+        long cells = grid.cells();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(grid.width());
+            buffer.putInt(grid.height());
+            buffer.putLong(configHash(grid.config()));
+            buffer.putInt(SECTIONS.length);
+            buffer.putInt(0);
+
+            long offset = align(HEADER_BYTES + (long) SECTIONS.length * SECTION_ENTRY_BYTES);
+            long[] offsets = new long[SECTIONS.length];
+            for (int s = 0; s < SECTIONS.length; s++) {
+                long length = cells * SECTION_VALUE_BYTES[s];
+                offsets[s] = offset;
+                buffer.putInt(SECTIONS[s]);
+                buffer.putInt(0);
+                buffer.putLong(offset);
+                offset = align(offset + length);
+            }
+
+            long position = HEADER_BYTES + (long) SECTIONS.length * SECTION_ENTRY_BYTES;
+            for (int s = 0; s < SECTIONS.length; s++) {
+                while (position < offsets[s]) {
+                    put(channel, buffer, 1);
+                    buffer.put((byte) 0);
+                    position++;
+                }
+                int section = SECTIONS[s];
+                int valueBytes = SECTION_VALUE_BYTES[s];
+                for (int x = 0; x < grid.width(); x++) {
+                    int column = grid.index(x, 0);
+                    for (int cell = column; cell < column + grid.height(); cell++) {
+                        put(channel, buffer, valueBytes);
+                        switch (section) {
+                            case SECTION_TYPE -> buffer.put((byte) grid.getType(cell).ordinal());
+                            case SECTION_ELEVATION -> buffer.putInt(grid.getElevation(cell));
+                            case SECTION_HEIGHT -> buffer.putFloat((float) grid.getHeight(cell));
+                        }
+                    }
+                }
+                position += cells * valueBytes;
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    public static MapHeader readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(channel);
+        }
+    }
+
+    /**
+     * Loads the terrain of the map straight from a memory mapping of the file into the grid. Cells of the map
+     * outside of the grid are dropped, cells of the grid outside of the map are left as they are.
+     */
+    public static MapHeader readMap(Path path, Grid grid) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MapHeader header = readHeader(channel);
+            long cells = (long) header.width() * header.height();
+
+            MappedByteBuffer types = null;
+            IntBuffer elevations = null;
+            FloatBuffer heights = null;
+            ByteBuffer directory = map(channel, HEADER_BYTES, (long) sectionCount(channel) * SECTION_ENTRY_BYTES);
+            while (directory.hasRemaining()) {
+                int section = directory.getInt();
+                directory.getInt();
+                long offset = directory.getLong();
+                switch (section) {
+                    case SECTION_TYPE -> types = map(channel, offset, cells * Byte.BYTES);
+                    case SECTION_ELEVATION -> elevations = map(channel, offset, cells * Integer.BYTES).asIntBuffer();
+                    case SECTION_HEIGHT -> heights = map(channel, offset, cells * Float.BYTES).asFloatBuffer();
+                    default -> {
+                    }
+                }
+            }
+            if (types == null || elevations == null || heights == null) {
+                throw new IOException("Map file is missing a section: " + path);
+            }
+
+            int columns = Math.min(header.width(), grid.width());
+            int rows = Math.min(header.height(), grid.height());
+            for (int x = 0; x < columns; x++) {
+                int start = x * header.height();
+                types.limit(start + rows).position(start);
+                elevations.limit(start + rows).position(start);
+                heights.limit(start + rows).position(start);
+                grid.loadTerrainColumn(x, 0, types, elevations, heights);
+            }
+            return header;
+        }
+    }
+
+    private static MapHeader readHeader(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            throw new IOException("Not a map file, too short");
+        }
+        ByteBuffer header = map(channel, 0, HEADER_BYTES);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a map file, bad magic number");
+        }
+        int version = header.getInt();
+        if (version > VERSION) {
+            throw new IOException("Unsupported map file version " + version);
+        }
+        int width = header.getInt();
+        int height = header.getInt();
+        if (width <= 0 || height <= 0) {
+            throw new IOException("Invalid map dimensions " + width + "x" + height);
+        }
+        return new MapHeader(version, width, height, header.getLong());
+    }
+
+    private static int sectionCount(FileChannel channel) throws IOException {
+        int count = map(channel, SECTION_COUNT_OFFSET, Integer.BYTES).getInt();
+        if (count < 0 || count > MAX_SECTIONS) {
+            throw new IOException("Map file is truncated or corrupt");
+        }
+        return count;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        if (offset < 0 || length > Integer.MAX_VALUE || offset + length > channel.size()) {
+            throw new IOException("Map file is truncated or corrupt");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    // makes room for the next value, writing out the buffer when it is full
+    private static void put(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
@@ -0,0 +1,62 @@
+package simulation.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import simulation.records.BoardStatistics;
+
+import java.io.IOException;
+
+public class BoardStatisticsAdapter extends TypeAdapter<BoardStatistics> {
+    @Override
+    public void write(JsonWriter out, BoardStatistics stats) throws IOException {
+        out.beginObject();
+        out.name("allFields").value(stats.allFields());
+        out.name("burntFields").value(stats.burntFields());
+        out.name("fireFields").value(stats.fireFields());
+        out.name("litterFields").value(stats.litterFields());
+        out.name("floorFields").value(stats.floorFields());
+        out.name("understoryFields").value(stats.understoryFields());
+        out.name("coniferousFields").value(stats.coniferousFields());
+        out.name("deciduousFields").value(stats.deciduousFields());
+        out.endObject();
+    }
+
+    @Override
+    public BoardStatistics read(JsonReader in) throws IOException {
+        int allFields = 0;
+        int burntFields = 0;
+        int fireFields = 0;
+        int litterFields = 0;
+        int floorFields = 0;
+        int understoryFields = 0;
+        int coniferousFields = 0;
+        int deciduousFields = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "allFields" -> allFields = in.nextInt();
+                case "burntFields" -> burntFields = in.nextInt();
+                case "fireFields" -> fireFields = in.nextInt();
+                case "litterFields" -> litterFields = in.nextInt();
+                case "floorFields" -> floorFields = in.nextInt();
+                case "understoryFields" -> understoryFields = in.nextInt();
+                case "coniferousFields" -> coniferousFields = in.nextInt();
+                case "deciduousFields" -> deciduousFields = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new BoardStatistics(
+                allFields,
+                burntFields,
+                fireFields,
+                litterFields,
+                floorFields,
+                understoryFields,
+                coniferousFields,
+                deciduousFields
+        );
+    }
+}
@@ -1,35 +1,248 @@
 package simulation.adapters;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
-import simulation.Point;
+import simulation.PointStates;
+import simulation.engine.Grid;
 
-import java.io.FileWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import javax.swing.JOptionPane;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.DoubleConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * JSON map import/export. Both directions stream, points are applied to the target as they are read
+ * and written straight from the grid, so memory use does not grow with the map.
+ * <p>
+ * Maps are an object holding the format version and the array of points. Maps saved before there was a
+ * version are a bare array whose "height" is the elevation of the point, so their heights are not used.
+ */
 public class MapShapeAdapter {
+    public static final String GZIP_EXTENSION = ".json.gz";
+    // 1 is the bare array of points without fuel heights
+    public static final int VERSION = 2;
 
-    public static void saveMap(Point[][] points, String filepath) {
-        try (FileWriter fileWriter = new FileWriter(filepath);
-             JsonWriter writer = new JsonWriter(fileWriter)) {
-            writer.setIndent("  ");
-            writer.beginArray();
-            for (int x = 0; x < points.length; x++) {
-                for (int y = 0; y < points[x].length; y++) {
-                    Point point = points[x][y];
-                    writer.beginObject();
-                    writer.name("x").value(x);
-                    writer.name("y").value(y);
-                    writer.name("currentState").value(point.currentState.toString());
-                    writer.name("elevation").value(point.getElevation());
-                    writer.name("height").value(point.getHeight());
-                    writer.endObject();
+    // progress is reported every this many points
+    private static final int PROGRESS_INTERVAL = 1 << 14;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Receives the points of a map as they are read. height is NaN when the map holds no fuel heights, the
+     * sink keeps its own then.
+     */
+    @FunctionalInterface
+    public interface PointSink {
+        void accept(int x, int y, int elevation, float height, PointStates state);
+    }
+
+    public static boolean isCompressed(Path path) {
+        return path.getFileName().toString().endsWith(GZIP_EXTENSION);
+    }
+
+    /**
+     * Writes the map to a file, gzip-compressed when the name ends with .json.gz. Progress goes from 0 to 1.
+     */
+    public static void writeMap(Grid grid, Path path, DoubleConsumer progress) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+        if (isCompressed(path)) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            writeMap(grid, writer, false, progress);
+        }
+    }
+
+    public static void writeMap(Grid grid, Writer out, boolean withFireState) throws IOException {
+        writeMap(grid, out, withFireState, progress -> {
+        });
+    }
+
+    /**
+     * Writes the map with its version and the array of points, optionally with the burnt/burning state of
+     * every cell
+     */
+    public static void writeMap(Grid grid, Writer out, boolean withFireState, DoubleConsumer progress) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginObject();
+        writer.name("version").value(VERSION);
+        writer.name("points");
+        writer.beginArray();
+        int written = 0;
+        for (int x = 0; x < grid.width(); x++) {
+            for (int y = 0; y < grid.height(); y++) {
+                int cell = grid.index(x, y);
+                writer.beginObject();
+                writer.name("x").value(x);
+                writer.name("y").value(y);
+                writer.name("currentState").value(grid.getType(cell).toString());
+                writer.name("elevation").value(grid.getElevation(cell));
+                writer.name("height").value(grid.getHeight(cell));
+                if (withFireState) {
+                    writer.name("burnt").value(grid.isBurnt(cell));
+                    writer.name("burning").value(grid.getType(cell) != PointStates.NO_FIRE && grid.isBurning(cell));
+                }
+                writer.endObject();
+
+                if (++written % PROGRESS_INTERVAL == 0) {
+                    progress.accept((double) written / grid.cells());
                 }
             }
-            writer.endArray();
-            JOptionPane.showMessageDialog(null, "Map saved successfully.");
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(null, "Error saving map: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+        progress.accept(1.0);
+    }
+
+    /**
+     * Reads a map file, plain or gzip-compressed. Progress is the share of the file read so far.
+     *
+     * @return number of points read
+     */
+    public static int readMap(Path path, PointSink sink, DoubleConsumer progress) throws IOException {
+        long size = Math.max(Files.size(path), 1);
+        try (CountingInputStream counting = new CountingInputStream(Files.newInputStream(path))) {
+            InputStream in = new BufferedInputStream(counting, BUFFER_SIZE);
+            if (isGzip(in)) {
+                in = new GZIPInputStream(in, BUFFER_SIZE);
+            }
+            Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+            int count = readMap(reader, sink, () -> progress.accept(Math.min((double) counting.count / size, 1.0)));
+            progress.accept(1.0);
+            return count;
+        }
+    }
+
+    /**
+     * Reads a JSON map of any version, handing every point to the sink as soon as it is complete
+     *
+     * @return number of points read
+     */
+    public static int readMap(Reader in, PointSink sink) throws IOException {
+        return readMap(in, sink, () -> {
+        });
+    }
+
+    private static int readMap(Reader in, PointSink sink, Runnable progress) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            return readPoints(reader, 1, sink, progress);
+        }
+
+        int version = 0;
+        int count = -1;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "version" -> {
+                    version = reader.nextInt();
+                    if (version < 2 || version > VERSION) {
+                        throw new IOException("Unsupported map version " + version);
+                    }
+                }
+                case "points" -> {
+                    if (version == 0) {
+                        throw new IOException("Map points before its version at " + reader.getPath());
+                    }
+                    count = readPoints(reader, version, sink, progress);
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (count < 0) {
+            throw new IOException("Map without points");
+        }
+        return count;
+    }
+
+    private static int readPoints(JsonReader reader, int version, PointSink sink, Runnable progress) throws IOException {
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            int x = -1;
+            int y = -1;
+            int elevation = 0;
+            float height = Float.NaN;
+            PointStates state = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "x" -> x = reader.nextInt();
+                    case "y" -> y = reader.nextInt();
+                    case "elevation" -> elevation = reader.nextInt();
+                    // version 1 stored the elevation there
+                    case "height" -> {
+                        if (version >= 2) {
+                            height = (float) reader.nextDouble();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    case "currentState" -> state = PointStates.fromDescription(reader.nextString());
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (x < 0 || y < 0 || state == null) {
+                throw new IOException("Incomplete point at " + reader.getPath());
+            }
+            sink.accept(x, y, elevation, height, state);
+            if (++count % PROGRESS_INTERVAL == 0) {
+                progress.run();
+            }
+        }
+        reader.endArray();
+        return count;
+    }
+
+    private static boolean isGzip(InputStream in) throws IOException {
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        return first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >>> 8);
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
         }
     }
 }
@@ -0,0 +1,92 @@
+package simulation.chart;
+
+import org.jfree.data.DomainOrder;
+import org.jfree.data.xy.AbstractXYDataset;
+
+/**
+ * Chart dataset showing a {@link SeriesHistory} thinned out to about as many points as the chart is wide.
+ * It only changes on refresh, which the GUI calls once per shown frame, so the chart is redrawn at most at
+ * the display rate and every redraw costs the same however long the run is. Used on the event dispatch
+ * thread only.
+ */
+public class HistoryDataset extends AbstractXYDataset {
+    private static final long serialVersionUID = 1L;
+
+    private final transient SeriesHistory history;
+    private final String[] keys;
+    private double[][] xs;
+    private double[][] ys;
+    private final int[] counts;
+    private long version = -1;
+    private int maxPoints;
+
+    public HistoryDataset(SeriesHistory history, String... keys) {
+        if (keys.length != history.series()) {
+            throw new IllegalArgumentException("Expected " + history.series() + " series names, got " + keys.length);
+        }
+        this.history = history;
+        this.keys = keys.clone();
+        this.xs = new double[keys.length][0];
+        this.ys = new double[keys.length][0];
+        this.counts = new int[keys.length];
+    }
+
+    /**
+     * Takes the current history with at most maxPoints points per series, listeners are only notified when
+     * the history or maxPoints changed since the last refresh
+     */
+    public void refresh(int maxPoints) {
+        long current = history.version();
+        if (current == version && maxPoints == this.maxPoints) {
+            return;
+        }
+        if (xs[0].length < maxPoints) {
+            xs = new double[keys.length][maxPoints];
+            ys = new double[keys.length][maxPoints];
+        }
+        history.read(maxPoints, xs, ys, counts);
+        version = current;
+        this.maxPoints = maxPoints;
+        fireDatasetChanged();
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return keys.length;
+    }
+
+    @Override
+    public Comparable<String> getSeriesKey(int series) {
+        return keys[series];
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return counts[series];
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return xs[series][item];
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return ys[series][item];
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return xs[series][item];
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        return ys[series][item];
+    }
+}
@@ -0,0 +1,166 @@
+package simulation.chart;
+
+/**
+ * Bounded history of a few series getting one value each per iteration, for the statistics chart. Points
+ * are kept in buckets of consecutive points, holding the minimum and the maximum of every series and where
+ * they were reached. Once all buckets are in use, neighbouring buckets are merged pairwise and the points
+ * per bucket doubled, so memory and the cost of reading stay the same however long a run gets, while short
+ * runs keep every point.
+ * <p>
+ * Points are added on the simulation thread and read on the event dispatch thread, both under the lock of
+ * the history.
+ */
+public class SeriesHistory {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final int series;
+    private final int capacity;
+    // per bucket and series, at bucket * series + s
+    private final double[] min;
+    private final double[] max;
+    private final long[] minX;
+    private final long[] maxX;
+
+    private int buckets;
+    // points merged into a full bucket, and into the last bucket so far
+    private long bucketPoints = 1;
+    private long lastPoints;
+    private long version;
+
+    public SeriesHistory(int series, int capacity) {
+        if (series <= 0) {
+            throw new IllegalArgumentException("At least one series is needed: " + series);
+        }
+        if (capacity < 2 || capacity % 2 != 0) {
+            throw new IllegalArgumentException("Capacity must be even and at least 2: " + capacity);
+        }
+        this.series = series;
+        this.capacity = capacity;
+        min = new double[capacity * series];
+        max = new double[capacity * series];
+        minX = new long[capacity * series];
+        maxX = new long[capacity * series];
+    }
+
+    public int series() {
+        return series;
+    }
+
+    /**
+     * Adds the values of every series at x, which has to be larger than the x of the previous point
+     */
+    public synchronized void add(long x, double[] values) {
+        if (values.length != series) {
+            throw new IllegalArgumentException("Expected " + series + " values, got " + values.length);
+        }
+        if (buckets > 0 && lastPoints < bucketPoints) {
+            int base = (buckets - 1) * series;
+            for (int s = 0; s < series; s++) {
+                if (values[s] < min[base + s]) {
+                    min[base + s] = values[s];
+                    minX[base + s] = x;
+                }
+                if (values[s] > max[base + s]) {
+                    max[base + s] = values[s];
+                    maxX[base + s] = x;
+                }
+            }
+            lastPoints++;
+        } else {
+            if (buckets == capacity) {
+                compact();
+            }
+            int base = buckets * series;
+            for (int s = 0; s < series; s++) {
+                min[base + s] = max[base + s] = values[s];
+                minX[base + s] = maxX[base + s] = x;
+            }
+            buckets++;
+            lastPoints = 1;
+        }
+        version++;
+    }
+
+    // merges neighbouring buckets into the first half, only called when every bucket is full
+    private void compact() {
+        for (int b = 0; b < capacity / 2; b++) {
+            int to = b * series;
+            int first = 2 * b * series;
+            int second = first + series;
+            for (int s = 0; s < series; s++) {
+                int low = min[second + s] < min[first + s] ? second + s : first + s;
+                int high = max[second + s] > max[first + s] ? second + s : first + s;
+                double lowValue = min[low];
+                long lowX = minX[low];
+                double highValue = max[high];
+                long highX = maxX[high];
+                min[to + s] = lowValue;
+                minX[to + s] = lowX;
+                max[to + s] = highValue;
+                maxX[to + s] = highX;
+            }
+        }
+        buckets = capacity / 2;
+        bucketPoints *= 2;
+    }
+
+    public synchronized void clear() {
+        buckets = 0;
+        bucketPoints = 1;
+        lastPoints = 0;
+        version++;
+    }
+
+    // changes with every add and clear
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Copies the history into xs[s] and ys[s] with at most maxPoints points per series, in order of x.
+     * Buckets are combined into maxPoints / 2 groups when there are more, each group giving its minimum and
+     * its maximum, so peaks survive however far the history is thinned out. The number of points written
+     * for every series goes into counts.
+     */
+    public synchronized void read(int maxPoints, double[][] xs, double[][] ys, int[] counts) {
+        if (maxPoints < 2) {
+            throw new IllegalArgumentException("At least two points are needed: " + maxPoints);
+        }
+        int groups = Math.min(buckets, maxPoints / 2);
+        for (int s = 0; s < series; s++) {
+            int count = 0;
+            for (int g = 0; g < groups; g++) {
+                int from = (int) ((long) g * buckets / groups);
+                int to = (int) ((long) (g + 1) * buckets / groups);
+                int low = from * series + s;
+                int high = low;
+                for (int b = from + 1; b < to; b++) {
+                    int i = b * series + s;
+                    if (min[i] < min[low]) {
+                        low = i;
+                    }
+                    if (max[i] > max[high]) {
+                        high = i;
+                    }
+                }
+                long lowX = minX[low];
+                long highX = maxX[high];
+                if (lowX == highX) {
+                    xs[s][count] = lowX;
+                    ys[s][count++] = min[low];
+                } else if (lowX < highX) {
+                    xs[s][count] = lowX;
+                    ys[s][count++] = min[low];
+                    xs[s][count] = highX;
+                    ys[s][count++] = max[high];
+                } else {
+                    xs[s][count] = highX;
+                    ys[s][count++] = max[high];
+                    xs[s][count] = lowX;
+                    ys[s][count++] = min[low];
+                }
+            }
+            counts[s] = count;
+        }
+    }
+}
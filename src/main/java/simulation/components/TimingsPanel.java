@@ -0,0 +1,68 @@
+package simulation.components;
+
+import simulation.instrumentation.Instrumentation;
+import simulation.instrumentation.Phase;
+import simulation.records.PhaseTiming;
+import simulation.records.TickSample;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.text.DecimalFormat;
+
+/**
+ * Table of the phase timings and the last tick kept by {@link Instrumentation}, refreshed at most a few
+ * times a second so watching the numbers does not change them much
+ */
+public class TimingsPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+    private static final long REFRESH_NANOS = 250_000_000L;
+    private static final Phase[] PHASES = Phase.values();
+
+    private final DefaultTableModel model;
+    private final DecimalFormat millis = new DecimalFormat("0.000");
+    private long lastRefresh;
+
+    public TimingsPanel() {
+        super(new BorderLayout());
+        String[] columnNames = {"Phase", "Last ms", "Mean ms"};
+        model = new DefaultTableModel(columnNames, PHASES.length + 3) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        for (int i = 0; i < PHASES.length; i++) {
+            model.setValueAt(PHASES[i].toString(), i, 0);
+        }
+        model.setValueAt("Tick", PHASES.length, 0);
+        model.setValueAt("Active cells", PHASES.length + 1, 0);
+        model.setValueAt("Allocated KB", PHASES.length + 2, 0);
+
+        JTable table = new JTable(model);
+        table.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        table.setFillsViewportHeight(true);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(200, table.getRowHeight() * (PHASES.length + 4)));
+        add(scrollPane, BorderLayout.CENTER);
+    }
+
+    // on the event dispatch thread, skipped when the last refresh was too recent
+    public void refresh() {
+        long now = System.nanoTime();
+        if (now - lastRefresh < REFRESH_NANOS) {
+            return;
+        }
+        lastRefresh = now;
+
+        for (int i = 0; i < PHASES.length; i++) {
+            PhaseTiming timing = Instrumentation.timing(PHASES[i]);
+            model.setValueAt(timing.calls() > 0 ? millis.format(timing.lastNanos() / 1e6) : "", i, 1);
+            model.setValueAt(timing.calls() > 0 ? millis.format(timing.meanNanos() / 1e6) : "", i, 2);
+        }
+        TickSample tick = Instrumentation.lastTick();
+        model.setValueAt(tick != null ? millis.format(tick.nanos() / 1e6) : "", PHASES.length, 1);
+        model.setValueAt(tick != null ? tick.activeCells() : "", PHASES.length + 1, 1);
+        model.setValueAt(tick != null && tick.allocated() >= 0 ? tick.allocated() / 1024 : "", PHASES.length + 2, 1);
+    }
+}
@@ -0,0 +1,36 @@
+package simulation.engine;
+
+/**
+ * One value per cell of a grid, indexed like the cells of the grid and zeroed when handed out by a
+ * {@link GridMemory}. Columns are only copied to and from columns of the same memory kind.
+ */
+interface CellColumn {
+    void copyFrom(CellColumn source);
+
+    // the values of count cells starting at cell from into the target starting at cell to
+    void copyCells(int from, CellColumn target, int to, int count);
+
+    interface OfByte extends CellColumn {
+        byte get(int cell);
+
+        void set(int cell, byte value);
+    }
+
+    interface OfShort extends CellColumn {
+        short get(int cell);
+
+        void set(int cell, short value);
+    }
+
+    interface OfInt extends CellColumn {
+        int get(int cell);
+
+        void set(int cell, int value);
+    }
+
+    interface OfDouble extends CellColumn {
+        double get(int cell);
+
+        void set(int cell, double value);
+    }
+}
@@ -0,0 +1,245 @@
+package simulation.engine;
+
+import simulation.Directions;
+import simulation.records.BoardConfig;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Checkpoints of the complete engine state: parameters, seed, tick, stepping mode and every value a tick
+ * reads of every cell. Restoring a checkpoint and stepping on gives the same result as the original run.
+ * <p>
+ * The first checkpoint of a chain is full, the following ones are incremental and only hold the cells
+ * changed since the previous checkpoint. Any checkpoint is restored by replaying its chain from the full
+ * checkpoint, a restored engine can be stepped on independently of the original, so runs can be branched.
+ * <p>
+ * Layout (gzip-compressed, big endian): magic, version, chain id, sequence number, tick, seed, stepping mode,
+ * parameters, width, height, number of cells, then cell records, each preceded by its index when incremental.
+ */
+public class Checkpointer {
+    public static final String EXTENSION = ".ffck";
+
+    private static final int MAGIC = 0x4B434646; // "FFCK"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final SimulationEngine engine;
+    private long chainId;
+    private Grid checkpointedGrid;
+    private int generation;
+    private int sequence;
+
+    public Checkpointer(SimulationEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Writes a checkpoint, incremental unless this is the first one or the engine has a new grid since
+     */
+    public void checkpoint(OutputStream out) throws IOException {
+        checkpoint(out, false);
+    }
+
+    public void checkpoint(OutputStream out, boolean full) throws IOException {
+        Grid grid = engine.getGrid();
+        boolean incremental = !full && grid == checkpointedGrid;
+        if (!incremental) {
+            // every full checkpoint starts a new chain
+            chainId = CounterRandom.nextSeed(chainId ^ System.nanoTime());
+            sequence = 0;
+        }
+
+        FastGzipOutputStream gzip = new FastGzipOutputStream(out);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(gzip, BUFFER_SIZE));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(chainId);
+        data.writeInt(sequence);
+        data.writeLong(grid.tick());
+        data.writeLong(grid.seed());
+        data.writeUTF(engine.getSteppingMode().name());
+        writeConfig(data, grid.config());
+        data.writeInt(grid.width());
+        data.writeInt(grid.height());
+
+        // cells are numbered x * height + y in the file, without the halo of the grid
+        if (incremental) {
+            int[] changed = changedCells(grid);
+            data.writeInt(changed.length);
+            for (int number : changed) {
+                data.writeInt(number);
+                grid.writeCell(data, grid.index(number / grid.height(), number % grid.height()));
+            }
+        } else {
+            data.writeInt(grid.cells());
+            for (int x = 0; x < grid.width(); x++) {
+                for (int y = 0; y < grid.height(); y++) {
+                    grid.writeCell(data, grid.index(x, y));
+                }
+            }
+        }
+        data.flush();
+        gzip.finish();
+
+        checkpointedGrid = grid;
+        generation = grid.nextGeneration();
+        sequence++;
+    }
+
+    // file numbers of the cells changed in this generation, in order. Change blocks without changes are skipped
+    // whole, so only the blocks around the fire are looked at
+    private int[] changedCells(Grid grid) {
+        int[] changed = new int[64];
+        int count = 0;
+        int height = grid.height();
+        for (int x = 0; x < grid.width(); x++) {
+            int column = grid.index(x, 0);
+            int y = 0;
+            while (y < height) {
+                int first = column + y;
+                int end = Math.min(height, y + (((first >>> Grid.CHANGE_BLOCK_SHIFT) + 1) << Grid.CHANGE_BLOCK_SHIFT) - first);
+                if (!grid.blockChangedSince(first, generation)) {
+                    y = end;
+                    continue;
+                }
+                for (; y < end; y++) {
+                    if (grid.changedSince(column + y, generation)) {
+                        if (count == changed.length) {
+                            changed = Arrays.copyOf(changed, 2 * changed.length);
+                        }
+                        changed[count++] = x * height + y;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * Restores the engine from a full checkpoint followed by any number of the incremental checkpoints
+     * written after it, in order
+     */
+    public static SimulationEngine restore(List<InputStream> chain) throws IOException {
+        return restore(chain, GridStorage.HEAP);
+    }
+
+    public static SimulationEngine restore(List<InputStream> chain, GridStorage storage) throws IOException {
+        if (chain.isEmpty()) {
+            throw new IllegalArgumentException("No checkpoints to restore");
+        }
+        Grid grid = null;
+        SteppingMode steppingMode = null;
+        long chainId = 0;
+        int sequence = 0;
+
+        for (InputStream in : chain) {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE));
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Not a checkpoint, bad magic number");
+            }
+            int version = data.readInt();
+            if (version > VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            long id = data.readLong();
+            int number = data.readInt();
+            if (grid == null && number != 0) {
+                throw new IOException("Chain must start with a full checkpoint (0), got " + number);
+            }
+            if (grid != null && (id != chainId || number != sequence)) {
+                throw new IOException("Checkpoint " + number + " does not follow checkpoint " + (sequence - 1) + " of the chain");
+            }
+            long tick = data.readLong();
+            long seed = data.readLong();
+            steppingMode = SteppingMode.valueOf(data.readUTF());
+            BoardConfig config = readConfig(data);
+            int width = data.readInt();
+            int height = data.readInt();
+            int cells = data.readInt();
+
+            if (grid == null) {
+                if (width <= 0 || height <= 0 || cells != width * height) {
+                    throw new IOException("Invalid checkpoint dimensions " + width + "x" + height);
+                }
+                grid = new Grid(width, height, config, seed, storage);
+                grid.restoreTick(tick);
+                for (int x = 0; x < width; x++) {
+                    for (int y = 0; y < height; y++) {
+                        grid.readCell(data, grid.index(x, y));
+                    }
+                }
+            } else {
+                // cells are numbered by the board size, so only checkpoints of the same board can be applied
+                if (width != grid.width() || height != grid.height() || seed != grid.seed() || !config.equals(grid.config())) {
+                    throw new IOException("Checkpoint " + number + " is of another board than checkpoint 0 of the chain");
+                }
+                grid.restoreTick(tick);
+                for (int i = 0; i < cells; i++) {
+                    int cell = data.readInt();
+                    if (cell < 0 || cell >= grid.cells()) {
+                        throw new IOException("Cell " + cell + " outside of the grid");
+                    }
+                    grid.readCell(data, grid.index(cell / grid.height(), cell % grid.height()));
+                }
+            }
+            chainId = id;
+            sequence = number + 1;
+        }
+        return new SimulationEngine(grid, steppingMode);
+    }
+
+    private static void writeConfig(DataOutputStream out, BoardConfig config) throws IOException {
+        out.writeInt(config.mapWidth());
+        out.writeInt(config.mapHeight());
+        out.writeDouble(config.windVelocity());
+        out.writeUTF(config.windDirection().name());
+        out.writeDouble(config.mediumMoisture());
+        out.writeDouble(config.mediumMoistureVariance());
+        out.writeDouble(config.airTemperature());
+        out.writeDouble(config.coniferousBurningTemperature());
+        out.writeDouble(config.deciduousBurningTemperature());
+        out.writeDouble(config.understoryBurningTemperature());
+        out.writeDouble(config.floorBurningTemperature());
+        out.writeDouble(config.litterBurningTemperature());
+        out.writeInt(config.size());
+        out.writeDouble(config.pointPercentage());
+    }
+
+    private static BoardConfig readConfig(DataInputStream in) throws IOException {
+        return new BoardConfig(
+                in.readInt(),
+                in.readInt(),
+                in.readDouble(),
+                Directions.valueOf(in.readUTF()),
+                in.readDouble(),
+                in.readDouble(),
+                in.readDouble(),
+                in.readDouble(),
+                in.readDouble(),
+                in.readDouble(),
+                in.readDouble(),
+                in.readDouble(),
+                in.readInt(),
+                in.readDouble()
+        );
+    }
+
+    // state dominates the checkpoint and compresses well, so speed matters more than ratio
+    private static class FastGzipOutputStream extends GZIPOutputStream {
+        FastGzipOutputStream(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+}
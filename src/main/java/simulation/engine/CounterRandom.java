@@ -0,0 +1,50 @@
+package simulation.engine;
+
+/**
+ * Stateless counter based random numbers. Every draw is a pure function of
+ * (seed, tick, cell, purpose), so results do not depend on the order cells are
+ * visited in or on the number of threads doing it.
+ */
+public final class CounterRandom {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private CounterRandom() {
+    }
+
+    public static long nextLong(long seed, long tick, long cell, int purpose) {
+        long z = mix64(seed + GOLDEN_GAMMA);
+        z = mix64(z ^ (tick * GOLDEN_GAMMA));
+        z = mix64(z ^ ((cell << 8 | purpose) * GOLDEN_GAMMA));
+        return z;
+    }
+
+    // uniform in [0, 1)
+    public static double nextDouble(long seed, long tick, long cell, int purpose) {
+        return (nextLong(seed, tick, cell, purpose) >>> 11) * DOUBLE_UNIT;
+    }
+
+    // standard normal, Box-Muller over two words derived from the same counter
+    public static double nextGaussian(long seed, long tick, long cell, int purpose) {
+        long z = nextLong(seed, tick, cell, purpose);
+        double u1 = ((z >>> 11) + 1) * DOUBLE_UNIT;
+        double u2 = (mix64(z) >>> 11) * DOUBLE_UNIT;
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    public static double nextGaussian(long seed, long tick, long cell, int purpose, double mean, double stddev) {
+        return mean + stddev * nextGaussian(seed, tick, cell, purpose);
+    }
+
+    // seed of the next run in a reproducible chain of runs
+    public static long nextSeed(long seed) {
+        return mix64(seed + GOLDEN_GAMMA);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,80 @@
+package simulation.engine;
+
+/**
+ * Streaming summary of integer samples in [0, upper]: count, mean, variance, extremes and a fixed size
+ * histogram. Memory does not depend on the number of samples.
+ */
+public class Distribution {
+    private final long upper;
+    private final long[] histogram;
+    private long count;
+    private double mean;
+    private double m2;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public Distribution(long upper, int bins) {
+        this.upper = Math.max(upper, 0);
+        this.histogram = new long[(int) Math.max(1, Math.min(bins, this.upper + 1))];
+    }
+
+    public void add(long value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        histogram[bin(value)]++;
+    }
+
+    private int bin(long value) {
+        long clamped = Math.min(Math.max(value, 0), upper);
+        return (int) Math.min(histogram.length - 1, clamped * histogram.length / (upper + 1));
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    public double standardDeviation() {
+        return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0.0;
+    }
+
+    public long min() {
+        return min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    // width of a histogram bin in sample units
+    public double binWidth() {
+        return (double) (upper + 1) / histogram.length;
+    }
+
+    public long[] histogram() {
+        return histogram.clone();
+    }
+
+    // approximate quantile, the upper edge of the bin containing it
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.ceil(q * count);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return Math.min(max, (i + 1) * binWidth());
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,187 @@
+package simulation.engine;
+
+import simulation.PointStates;
+import simulation.records.BoardStatistics;
+import simulation.records.EnsembleResult;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Monte Carlo ensemble: runs independent replicas of a grid, each with its own seed, and streams their
+ * outcomes into burn probability and mean arrival time rasters and distributions of the board statistics.
+ * Replicas share the terrain of the base grid and only one set of fire state arrays exists per running
+ * replica, so memory depends on the pool parallelism, not on the number of replicas. Each replica keeps its
+ * stepper and starts every run from the cells of the base that can change, so a run costs what the fire
+ * touches, not the size of the board.
+ */
+public class Ensemble {
+    private static final int HISTOGRAM_BINS = 100;
+    private static final String[] FIELDS = {
+            "allFields",
+            "burntFields",
+            "fireFields",
+            "litterFields",
+            "floorFields",
+            "understoryFields",
+            "coniferousFields",
+            "deciduousFields"
+    };
+
+    private final Grid base;
+    private final int replicas;
+    private final int ticks;
+    private final long seed;
+
+    private final int[] burnCount;
+    private final long[] arrivalSum;
+    private final Distribution[] statistics;
+    private final ConcurrentLinkedQueue<Replica> idle = new ConcurrentLinkedQueue<>();
+
+    // cells of the base that can change in the first tick, and the ones already burning, the same in every replica
+    private final BitSet unsettled;
+    private final int[] burning;
+
+    public Ensemble(Grid base, int replicas, int ticks, long seed) {
+        this.base = base;
+        this.replicas = replicas;
+        this.ticks = ticks;
+        this.seed = seed;
+        this.burnCount = new int[base.indexSize()];
+        this.arrivalSum = new long[base.indexSize()];
+
+        long fuelCells = base.toBoardStatistics().allFields();
+        this.statistics = new Distribution[FIELDS.length];
+        for (int i = 0; i < FIELDS.length; i++) {
+            statistics[i] = new Distribution(fuelCells, HISTOGRAM_BINS);
+        }
+
+        BitSet interior = new BitSet(base.indexSize());
+        base.markInterior(interior);
+        this.unsettled = new BitSet(base.indexSize());
+        interior.stream().filter(cell -> !base.isSettled(cell)).forEach(unsettled::set);
+        this.burning = interior.stream()
+                .filter(cell -> base.getType(cell) != PointStates.NO_FIRE && base.isBurning(cell))
+                .toArray();
+    }
+
+    public EnsembleResult run(ForkJoinPool pool) {
+        try {
+            pool.submit(() -> IntStream.range(0, replicas).parallel().forEach(this::runReplica)).join();
+        } finally {
+            for (Replica replica = idle.poll(); replica != null; replica = idle.poll()) {
+                replica.grid.close();
+            }
+        }
+
+        float[] burnProbability = new float[base.cells()];
+        float[] meanArrivalTick = new float[base.cells()];
+        for (int x = 0; x < base.width(); x++) {
+            for (int y = 0; y < base.height(); y++) {
+                int cell = base.index(x, y);
+                int pixel = x * base.height() + y;
+                burnProbability[pixel] = replicas > 0 ? (float) burnCount[cell] / replicas : 0.0f;
+                meanArrivalTick[pixel] = burnCount[cell] > 0 ? (float) arrivalSum[cell] / burnCount[cell] : Float.NaN;
+            }
+        }
+
+        Map<String, Distribution> fields = new LinkedHashMap<>();
+        for (int i = 0; i < FIELDS.length; i++) {
+            fields.put(FIELDS[i], statistics[i]);
+        }
+        return new EnsembleResult(replicas, ticks, base.width(), base.height(), burnProbability, meanArrivalTick, fields);
+    }
+
+    private void runReplica(int index) {
+        long replicaSeed = CounterRandom.nextLong(seed, 0, index, 0);
+        Replica replica = idle.poll();
+        boolean reused = replica != null;
+        if (!reused) {
+            replica = new Replica(base.replica(replicaSeed));
+        }
+
+        // back to idle even when a step fails, so run closes the replica
+        try {
+            if (reused) {
+                replica.grid.resetFrom(base, replicaSeed);
+            }
+            for (int cell : burning) {
+                replica.recordArrival(cell);
+            }
+
+            FrontierStepper stepper = replica.stepper;
+            stepper.reset(unsettled);
+            for (int t = 0; t < ticks; t++) {
+                stepper.step();
+                BitSet visited = stepper.visited();
+                for (int cell = visited.nextSetBit(0); cell >= 0; cell = visited.nextSetBit(cell + 1)) {
+                    replica.recordArrival(cell);
+                }
+            }
+
+            merge(replica, replica.grid.toBoardStatistics());
+        } finally {
+            replica.clearArrivals();
+            idle.add(replica);
+        }
+    }
+
+    // only the cells the replica burnt, so replicas finishing together wait little for each other
+    private synchronized void merge(Replica replica, BoardStatistics stats) {
+        for (int i = 0; i < replica.burnt; i++) {
+            int cell = replica.burntCells[i];
+            burnCount[cell]++;
+            arrivalSum[cell] += replica.arrival[cell];
+        }
+
+        statistics[0].add(stats.allFields());
+        statistics[1].add(stats.burntFields());
+        statistics[2].add(stats.fireFields());
+        statistics[3].add(stats.litterFields());
+        statistics[4].add(stats.floorFields());
+        statistics[5].add(stats.understoryFields());
+        statistics[6].add(stats.coniferousFields());
+        statistics[7].add(stats.deciduousFields());
+    }
+
+    private static class Replica {
+        private final Grid grid;
+        // kept with the grid, reset at the start of every run
+        private final FrontierStepper stepper;
+        // tick each cell started burning at, -1 when it did not
+        private final int[] arrival;
+        // cells with an arrival tick, in the order they started burning
+        private int[] burntCells = new int[1024];
+        private int burnt;
+
+        Replica(Grid grid) {
+            this.grid = grid;
+            this.stepper = new FrontierStepper(grid);
+            this.arrival = new int[grid.indexSize()];
+            Arrays.fill(arrival, -1);
+        }
+
+        void recordArrival(int cell) {
+            if (arrival[cell] < 0 && grid.getType(cell) != PointStates.NO_FIRE && grid.isBurning(cell)) {
+                arrival[cell] = (int) grid.tick();
+                if (burnt == burntCells.length) {
+                    burntCells = Arrays.copyOf(burntCells, 2 * burnt);
+                }
+                burntCells[burnt++] = cell;
+            }
+        }
+
+        // back to no arrivals for the next run, only touching the cells that burnt
+        void clearArrivals() {
+            for (int i = 0; i < burnt; i++) {
+                arrival[burntCells[i]] = -1;
+            }
+            burnt = 0;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package simulation.engine;
+
+import simulation.instrumentation.Instrumentation;
+import simulation.instrumentation.Phase;
+import simulation.records.BoardConfig;
+
+import java.util.BitSet;
+
+/**
+ * Visits only cells that can change during the tick: unsettled cells (burning, still cooling down or
+ * edited) and their Moore neighbours. Everything else is left untouched, which gives the same result as
+ * {@link FullScanStepper} at a cost proportional to the fire perimeter instead of the board.
+ */
+public class FrontierStepper implements Stepper {
+    private final Grid grid;
+    private final BitSet unsettled;
+    private final BitSet active;
+
+    public FrontierStepper(Grid grid) {
+        this.grid = grid;
+        this.unsettled = new BitSet(grid.indexSize());
+        this.active = new BitSet(grid.indexSize());
+        grid.markInterior(unsettled);
+    }
+
+    /**
+     * Starts over on a grid whose state was replaced, from the given unsettled cells. Edits pending on the
+     * grid are dropped, so the cells have to include every cell that can change in the next tick.
+     */
+    public void reset(BitSet unsettled) {
+        grid.drainTouched(active);
+        active.clear();
+        this.unsettled.clear();
+        this.unsettled.or(unsettled);
+    }
+
+    @Override
+    public void step() {
+        BoardConfig conf = grid.config();
+        long begin = Instrumentation.begin();
+        grid.drainTouched(unsettled);
+
+        active.clear();
+        for (int cell = unsettled.nextSetBit(0); cell >= 0; cell = unsettled.nextSetBit(cell + 1)) {
+            grid.markNeighborhood(cell, active);
+        }
+        grid.clearHalo(active);
+        Instrumentation.end(Phase.ACTIVATE, begin);
+
+        begin = Instrumentation.begin();
+        // the halo is never active, so runs of active cells stay within a column
+        for (int from = active.nextSetBit(0), to; from >= 0; from = active.nextSetBit(to)) {
+            to = active.nextClearBit(from);
+            grid.calculateNewState(from, to, conf.windVelocity(), conf.windDirection());
+        }
+        Instrumentation.end(Phase.CALCULATE, begin);
+
+        begin = Instrumentation.begin();
+        for (int from = active.nextSetBit(0), to; from >= 0; from = active.nextSetBit(to)) {
+            to = active.nextClearBit(from);
+            grid.update(from, to);
+        }
+        Instrumentation.end(Phase.UPDATE, begin);
+
+        begin = Instrumentation.begin();
+        for (int cell = active.nextSetBit(0); cell >= 0; cell = active.nextSetBit(cell + 1))
+            unsettled.set(cell, !grid.isSettled(cell));
+        Instrumentation.end(Phase.SETTLE, begin);
+
+        grid.advanceTick();
+    }
+
+    @Override
+    public int activeCells() {
+        return active.cardinality();
+    }
+
+    // cells visited by the last step, every cell that changed is among them
+    public BitSet visited() {
+        return active;
+    }
+}
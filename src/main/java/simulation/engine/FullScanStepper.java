@@ -0,0 +1,43 @@
+package simulation.engine;
+
+import simulation.instrumentation.Instrumentation;
+import simulation.instrumentation.Phase;
+import simulation.records.BoardConfig;
+
+/**
+ * Visits every cell of the board on every tick, column by column to step over the halo
+ */
+public class FullScanStepper implements Stepper {
+    private final Grid grid;
+
+    public FullScanStepper(Grid grid) {
+        this.grid = grid;
+    }
+
+    @Override
+    public void step() {
+        BoardConfig conf = grid.config();
+        int height = grid.height();
+
+        long begin = Instrumentation.begin();
+        for (int x = 0; x < grid.width(); x++) {
+            int column = grid.index(x, 0);
+            grid.calculateNewState(column, column + height, conf.windVelocity(), conf.windDirection());
+        }
+        Instrumentation.end(Phase.CALCULATE, begin);
+
+        begin = Instrumentation.begin();
+        for (int x = 0; x < grid.width(); x++) {
+            int column = grid.index(x, 0);
+            grid.update(column, column + height);
+        }
+        Instrumentation.end(Phase.UPDATE, begin);
+
+        grid.advanceTick();
+    }
+
+    @Override
+    public int activeCells() {
+        return grid.cells();
+    }
+}
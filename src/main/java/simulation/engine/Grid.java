@@ -0,0 +1,1252 @@
+package simulation.engine;
+
+import simulation.Directions;
+import simulation.PointStates;
+import simulation.instrumentation.Instrumentation;
+import simulation.instrumentation.Phase;
+import simulation.records.BoardConfig;
+import simulation.records.BoardStatistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+import static java.lang.Math.max;
+
+/**
+ * Whole board state kept in flat per-cell columns (structure of arrays), on the heap or off it as the
+ * {@link GridStorage} says. The board is surrounded by a halo ring one cell wide, so cell (x, y) is stored at index
+ * (x + 1) * (height + 2) + y + 1 and every cell of the board has all eight Moore neighbours in the arrays.
+ * Halo cells are empty, at the initial temperature and never visited by a step, which lets the neighbour
+ * loops run the same way on the border as anywhere else. The levels of the cells are kept in {@link LevelChunks},
+ * which only allocate storage for the parts of the board that left their initial state.
+ */
+public class Grid implements AutoCloseable {
+    public static final int LEVELS = 10;
+    private static final PointStates[] TYPES = PointStates.values();
+
+    private static final double STANDARD_HUMIDITY = 0.5;
+    private static final double INITIAL_TEMPERATURE = 30.0;
+    private static final double MEDIUM_CONIFEROUS_HEIGHT = 25;
+    private static final double MEDIUM_DECIDUOUS_HEIGHT = 35;
+    private static final double MEDIUM_UNDERSTORY_HEIGHT = 5.0;
+    private static final double MEDIUM_FLOOR_HEIGHT = 0.05;
+    private static final double MEDIUM_LITTER_HEIGHT = 0.5;
+    private static final double MEDIUM_CONIFEROUS_HEIGHT_VARIANCE = 25;
+    private static final double MEDIUM_DECIDUOUS_HEIGHT_VARIANCE = 25;
+    private static final double MEDIUM_UNDERSTORY_HEIGHT_VARIANCE = 0.001;
+    private static final double MEDIUM_FLOOR_HEIGHT_VARIANCE = 0.001;
+    private static final double MEDIUM_LITTER_HEIGHT_VARIANCE = 0.001;
+    private static final double W = 0.2;
+    private static final double P = 0.1;
+    private static final double DISTANCE = 1.0;
+    static final double FIRE_GROWTH_RATE = 0.2;
+    static final double STATE_DECAY = 0.005;
+    private static final LevelKernel KERNEL = LevelKernel.select();
+    // burning temperatures and compare results of the cells of a chunk, for the threads of ParallelStepper
+    private static final ThreadLocal<float[]> BURN_TEMPERATURES = ThreadLocal.withInitial(() -> new float[LevelChunks.CHUNK_CELLS]);
+    private static final ThreadLocal<int[]> COMPARED = ThreadLocal.withInitial(() -> new int[LevelChunks.CHUNK_CELLS]);
+
+    // height of level k as a share of the height of the cell, k / (LEVELS - 1)
+    private static final double[] LEVEL_FRACTIONS = new double[LEVELS];
+    // spread probabilities to a straight and a diagonal neighbour by elevation difference, see spreadProbability
+    private static final int SPREAD_TABLE_SIZE = 1024;
+    private static final double[] STRAIGHT_SPREAD = new double[SPREAD_TABLE_SIZE];
+    private static final double[] DIAGONAL_SPREAD = new double[SPREAD_TABLE_SIZE];
+
+    static {
+        for (int k = 0; k < LEVELS; k++) {
+            LEVEL_FRACTIONS[k] = (double) k / (LEVELS - 1);
+        }
+        for (int d = 0; d < SPREAD_TABLE_SIZE; d++) {
+            STRAIGHT_SPREAD[d] = computeSpreadProbability(d, false);
+            DIAGONAL_SPREAD[d] = computeSpreadProbability(d, true);
+        }
+    }
+
+    // purposes of the per-cell draws made during a tick, see CounterRandom
+    private static final int DRAW_NEIGHBOR = 0;
+    private static final int DRAW_SPREAD_UP = DRAW_NEIGHBOR + 8;
+    private static final int DRAW_SPREAD_DOWN = DRAW_SPREAD_UP + LEVELS;
+    private static final int DRAW_WIND = DRAW_SPREAD_DOWN + LEVELS;
+    private static final int DRAW_HUMIDITY = DRAW_WIND + LEVELS;
+    private static final int DRAW_HEIGHT = DRAW_HUMIDITY + 1;
+    // purposes from here on are left for map generation done outside of the grid, see TerrainGenerator
+    public static final int DRAW_FUEL = DRAW_HEIGHT + 1;
+
+    /**
+     * With -Dsimulation.checkStatistics=true every toBoardStatistics call checks the maintained counters
+     * against a full recount and throws IllegalStateException when they disagree
+     */
+    public static final boolean CHECK_STATISTICS = Boolean.getBoolean("simulation.checkStatistics");
+
+    // cells of a change block are 2^CHANGE_BLOCK_SHIFT consecutive indices, see blockChangedSince
+    public static final int CHANGE_BLOCK_SHIFT = 8;
+
+    // what a cell counts towards in the statistics: its type ordinal and the flags below, 0 for empty cells
+    private static final int TALLY_BURNT = 1 << 3;
+    private static final int TALLY_BURNING = 1 << 4;
+    private static final int TALLY_TYPE = TALLY_BURNT - 1;
+    // counters, unburnt fuel is counted at the ordinal of its type, which leaves 0 free as NO_FIRE is not counted
+    private static final int COUNT_ALL = 0;
+    private static final int COUNT_BURNT = PointStates.FIRE.ordinal();
+    private static final int COUNT_FIRE = COUNT_BURNT + 1;
+
+    private final int width;
+    private final int height;
+    // column length in the arrays, the height with the halo above and below
+    private final int stride;
+    private final BoardConfig conf;
+    private long seed;
+    private long tick;
+    // replicas share the terrain arrays of the grid they were made from and may not edit them
+    private final boolean sharedTerrain;
+
+    // where the columns and level chunks below live, freed by close
+    private final GridStorage storage;
+    private final GridMemory memory;
+
+    // per cell terrain, read and written through the accessors at the end
+    private final CellColumn.OfByte type;
+    private final CellColumn.OfInt elevation;
+    private final CellColumn.OfDouble pointHeight;
+    private final CellColumn.OfDouble humidity;
+    private final CellColumn.OfDouble burningTemperature;
+
+    // per cell
+    private final CellColumn.OfByte fireSource;
+    private final CellColumn.OfShort onFire;
+
+    // per cell and level, allocated in chunks as cells start to differ from their initial values
+    private final LevelChunks state;
+    private final LevelChunks temperature;
+    private final LevelChunks nextTemperature;
+
+    // Moore neighbourhood in the same order Point used to keep them: N, E, S, W, NW, NE, SE, SW
+    private static final int[] NEIGHBOR_DX = {0, 1, 0, -1, -1, 1, 1, -1};
+    private static final int[] NEIGHBOR_DY = {-1, 0, 1, 0, -1, -1, 1, 1};
+    // index differences to the neighbours, also the wind directions, valid for every cell of the board
+    private final int[] neighborOffsets;
+    // the cells of the board, without the halo
+    private final BitSet interior;
+
+    // cells edited since the last time a stepper collected them
+    private final BitSet touched;
+    // generation in which each cell last changed, by an edit or by a step, see changedSince
+    private final CellColumn.OfInt changedAt;
+    // latest generation in which any cell of the change block changed
+    private final int[] blockChangedAt;
+    private int generation;
+
+    // statistics kept up to date by every change of a cell, updated from several threads by ParallelStepper
+    private final CellColumn.OfByte tally;
+    private final AtomicIntegerArray counts;
+
+    // wind terms of the last tick, replaced when calculateNewState is called with another wind
+    private Wind wind;
+
+    public Grid(int width, int height, BoardConfig conf, long seed) {
+        this(width, height, conf, seed, GridStorage.HEAP);
+    }
+
+    public Grid(int width, int height, BoardConfig conf, long seed, GridStorage storage) {
+        this.width = width;
+        this.height = height;
+        this.stride = height + 2;
+        this.conf = conf;
+        this.seed = seed;
+        this.sharedTerrain = false;
+
+        int cells = (width + 2) * stride;
+        this.storage = storage;
+        memory = storage.open();
+        type = memory.bytes(cells);
+        fireSource = memory.bytes(cells);
+        elevation = memory.ints(cells);
+        pointHeight = memory.doubles(cells);
+        humidity = memory.doubles(cells);
+        burningTemperature = memory.doubles(cells);
+        onFire = memory.shorts(cells);
+
+        state = new LevelChunks(cells, 1.0f, memory);
+        temperature = new LevelChunks(cells, (float) INITIAL_TEMPERATURE, memory);
+        nextTemperature = new LevelChunks(cells, (float) INITIAL_TEMPERATURE, memory);
+
+        neighborOffsets = new int[NEIGHBOR_DX.length];
+        for (int j = 0; j < neighborOffsets.length; j++) {
+            neighborOffsets[j] = NEIGHBOR_DX[j] * stride + NEIGHBOR_DY[j];
+        }
+        interior = new BitSet(cells);
+        for (int x = 0; x < width; x++) {
+            interior.set(index(x, 0), index(x, 0) + height);
+        }
+        touched = new BitSet(cells);
+        changedAt = memory.ints(cells);
+        blockChangedAt = new int[(cells >>> CHANGE_BLOCK_SHIFT) + 1];
+        tally = memory.bytes(cells);
+        counts = new AtomicIntegerArray(COUNT_FIRE + 1);
+        wind = Wind.of(conf.windVelocity(), conf.windDirection());
+
+        // the halo keeps the initial values of the arrays, an empty cell that counts towards nothing. Cells are
+        // flat and empty until a map is generated or loaded; clearing them only writes the cell itself, so
+        // columns are cleared in parallel.
+        IntStream.range(0, width).parallel().forEach(x -> {
+            int column = index(x, 0);
+            for (int cell = column; cell < column + height; cell++) {
+                clearCell(cell);
+            }
+        });
+        touched.or(interior);
+    }
+
+    private Grid(Grid base, long seed) {
+        this.width = base.width;
+        this.height = base.height;
+        this.stride = base.stride;
+        this.conf = base.conf;
+        this.seed = seed;
+        this.tick = base.tick;
+        this.sharedTerrain = true;
+
+        type = base.type;
+        elevation = base.elevation;
+        pointHeight = base.pointHeight;
+        humidity = base.humidity;
+        burningTemperature = base.burningTemperature;
+
+        storage = base.storage;
+        memory = storage.open();
+        int cells = base.indexSize();
+        fireSource = memory.bytes(cells);
+        fireSource.copyFrom(base.fireSource);
+        onFire = memory.shorts(cells);
+        onFire.copyFrom(base.onFire);
+        state = base.state.copy(memory);
+        temperature = base.temperature.copy(memory);
+        nextTemperature = base.nextTemperature.copy(memory);
+
+        neighborOffsets = base.neighborOffsets;
+        interior = base.interior;
+        touched = new BitSet(indexSize());
+        touched.or(interior);
+        changedAt = memory.ints(cells);
+        changedAt.copyFrom(base.changedAt);
+        blockChangedAt = base.blockChangedAt.clone();
+        generation = base.generation;
+        tally = memory.bytes(cells);
+        tally.copyFrom(base.tally);
+        counts = new AtomicIntegerArray(COUNT_FIRE + 1);
+        copyCounts(base);
+        wind = base.wind;
+    }
+
+    /**
+     * Independent copy of the fire state running with its own seed, in memory of its own. The terrain is
+     * shared with this grid, so it has to stay unchanged, and this grid open, while the replica is in use.
+     */
+    public Grid replica(long seed) {
+        return new Grid(this, seed);
+    }
+
+    /**
+     * Resets a replica to the current fire state of the grid it was made from, so it can be reused
+     */
+    public void resetFrom(Grid base, long seed) {
+        if (type != base.type) {
+            throw new IllegalArgumentException("Grid does not share the terrain of the base grid");
+        }
+        this.seed = seed;
+        this.tick = base.tick;
+        fireSource.copyFrom(base.fireSource);
+        onFire.copyFrom(base.onFire);
+        state.copyFrom(base.state);
+        temperature.copyFrom(base.temperature);
+        nextTemperature.copyFrom(base.nextTemperature);
+        changedAt.copyFrom(base.changedAt);
+        System.arraycopy(base.blockChangedAt, 0, blockChangedAt, 0, blockChangedAt.length);
+        generation = base.generation;
+        tally.copyFrom(base.tally);
+        copyCounts(base);
+        touched.or(interior);
+    }
+
+    /**
+     * Copy of the grid grown to the given size, with every cell keeping its position and state and empty
+     * cells added on the right and at the bottom. Level storage is only allocated for the chunks that had
+     * some in this grid. Draws are keyed on the position of a cell in the board, so the new grid draws
+     * differently from here on.
+     */
+    public Grid grown(int width, int height) {
+        if (width < this.width || height < this.height) {
+            throw new IllegalArgumentException("Cannot shrink " + this.width + "x" + this.height + " to " + width + "x" + height);
+        }
+        Grid grown = new Grid(width, height, conf, seed, storage);
+        grown.tick = tick;
+        grown.generation = generation;
+        grown.wind = wind;
+        for (int x = 0; x < this.width; x++) {
+            int from = index(x, 0);
+            int to = grown.index(x, 0);
+            type.copyCells(from, grown.type, to, this.height);
+            elevation.copyCells(from, grown.elevation, to, this.height);
+            pointHeight.copyCells(from, grown.pointHeight, to, this.height);
+            humidity.copyCells(from, grown.humidity, to, this.height);
+            burningTemperature.copyCells(from, grown.burningTemperature, to, this.height);
+            fireSource.copyCells(from, grown.fireSource, to, this.height);
+            onFire.copyCells(from, grown.onFire, to, this.height);
+            changedAt.copyCells(from, grown.changedAt, to, this.height);
+            tally.copyCells(from, grown.tally, to, this.height);
+            grown.state.copyCells(state, from, to, this.height);
+            grown.temperature.copyCells(temperature, from, to, this.height);
+            grown.nextTemperature.copyCells(nextTemperature, from, to, this.height);
+            for (int cell = to; cell < to + this.height; cell++) {
+                int block = cell >>> CHANGE_BLOCK_SHIFT;
+                grown.blockChangedAt[block] = max(grown.blockChangedAt[block], grown.changedAt(cell));
+            }
+        }
+        // the added cells are empty and count towards nothing
+        grown.copyCounts(this);
+        return grown;
+    }
+
+    private void copyCounts(Grid base) {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, base.counts.get(i));
+        }
+    }
+
+    private void checkTerrainWritable() {
+        if (sharedTerrain) {
+            throw new IllegalStateException("Terrain of a replica cannot be edited");
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    // cells of the board, without the halo
+    public int cells() {
+        return width * height;
+    }
+
+    /**
+     * Cell indices are below this, it counts the halo ring too. Per cell arrays indexed like the grid are
+     * this long.
+     */
+    public int indexSize() {
+        return (width + 2) * stride;
+    }
+
+    public BoardConfig config() {
+        return conf;
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    public long tick() {
+        return tick;
+    }
+
+    public void advanceTick() {
+        tick++;
+    }
+
+    /**
+     * Uniform draw in [0, 1) that depends only on the seed, the current tick, the cell and the purpose
+     */
+    public double draw(int cell, int purpose) {
+        return CounterRandom.nextDouble(seed, tick, boardIndex(cell), purpose);
+    }
+
+    private double drawGaussian(int cell, int purpose, double mean, double stddev) {
+        return CounterRandom.nextGaussian(seed, tick, boardIndex(cell), purpose, mean, stddev);
+    }
+
+    public int index(int x, int y) {
+        return (x + 1) * stride + y + 1;
+    }
+
+    public int cellX(int cell) {
+        return cell / stride - 1;
+    }
+
+    public int cellY(int cell) {
+        return cell % stride - 1;
+    }
+
+    /**
+     * Position of the cell in x * height + y order, without the halo. Files, replays and ensemble rasters
+     * index cells this way, and the draws use it so a seed gives the same fire whatever the layout.
+     */
+    public int boardIndex(int cell) {
+        return cell - 2 * (cell / stride) - height - 1;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Marks the cells of the board in {@code into}, leaving the halo out
+     */
+    public void markInterior(BitSet into) {
+        into.or(interior);
+    }
+
+    /**
+     * Clears the halo cells in {@code into}, as marked by markNeighborhood around the border
+     */
+    public void clearHalo(BitSet into) {
+        into.and(interior);
+    }
+
+    /**
+     * Moves the cells edited since the previous call into {@code into}
+     */
+    public void drainTouched(BitSet into) {
+        into.or(touched);
+        touched.clear();
+    }
+
+    private void touch(int cell) {
+        touched.set(cell);
+        changedAt(cell, generation);
+        blockChangedAt[cell >>> CHANGE_BLOCK_SHIFT] = generation;
+    }
+
+    /**
+     * Starts a new generation of changes, for callers that keep track of what changed since they last looked.
+     * Not to be called during a step.
+     *
+     * @return the generation to pass to changedSince
+     */
+    public int nextGeneration() {
+        return ++generation;
+    }
+
+    /**
+     * Whether the cell was edited or changed by a step since the given generation started
+     */
+    public boolean changedSince(int cell, int generation) {
+        return changedAt(cell) >= generation;
+    }
+
+    /**
+     * Whether any cell of the change block holding the cell changed since the given generation started, so
+     * callers looking for changes can skip whole blocks
+     */
+    public boolean blockChangedSince(int cell, int generation) {
+        return blockChangedAt[cell >>> CHANGE_BLOCK_SHIFT] >= generation;
+    }
+
+    /**
+     * Frees the level storage of chunks whose cells are all back in their initial state, as after clearing
+     * the board. Not to be called during a step.
+     */
+    public void trimChunks() {
+        state.trim();
+        temperature.trim();
+        nextTemperature.trim();
+    }
+
+    // chunks of LevelChunks.CHUNK_CELLS cells with their own storage, over the three per level arrays
+    public int allocatedChunks() {
+        return state.allocatedChunks() + temperature.allocatedChunks() + nextTemperature.allocatedChunks();
+    }
+
+    public GridStorage storage() {
+        return storage;
+    }
+
+    /**
+     * Frees the memory of an off-heap grid right away, a heap grid is left to the collector. The grid, and
+     * replicas made from it, may not be used afterwards; an off-heap one throws IllegalStateException.
+     */
+    @Override
+    public void close() {
+        memory.close();
+    }
+
+    // off-heap bytes taken by the grid, 0 on the heap
+    long reservedBytes() {
+        return memory.reservedBytes();
+    }
+
+    public void initializeEmpty(int cell) {
+        checkTerrainWritable();
+        touch(cell);
+        clearCell(cell);
+    }
+
+    // initializeEmpty without marking the cell touched, only writes the cell itself
+    private void clearCell(int cell) {
+        fireSource(cell, false);
+        type(cell, PointStates.NO_FIRE.ordinal());
+        humidity(cell, drawGaussian(cell, DRAW_HUMIDITY, conf.mediumMoisture(), Math.sqrt(conf.mediumMoistureVariance())));
+        onFire(cell, 0);
+
+        state.fill(cell, 1.0f);
+        temperature.fill(cell, (float) INITIAL_TEMPERATURE);
+        nextTemperature.fill(cell, (float) INITIAL_TEMPERATURE);
+        recount(cell);
+    }
+
+    public void initializeFuel(int cell, PointStates fuel) {
+        initializeEmpty(cell);
+        assignFuel(cell, fuel);
+        recount(cell);
+    }
+
+    /**
+     * Elevation and fuel of a cell still empty as the constructor left it, for {@link TerrainGenerator}. The
+     * cell is not marked touched, the constructor did that, and only the cell itself is written, so cells
+     * may be generated on several threads at once. NO_FIRE leaves the cell empty. The statistics counters
+     * are not updated, the generator adds its fuel cells once per tile with {@link #countGenerated}.
+     */
+    void generateCell(int cell, int elevation, PointStates fuel) {
+        checkTerrainWritable();
+        elevation(cell, elevation);
+        if (fuel != PointStates.NO_FIRE) {
+            assignFuel(cell, fuel);
+            tally(cell, fuel.ordinal());
+        }
+    }
+
+    // adds generated cells of a fuel to the statistics, counting cell by cell would contend on the counters
+    void countGenerated(PointStates fuel, int cells) {
+        counts.getAndAdd(COUNT_ALL, cells);
+        counts.getAndAdd(fuel.ordinal(), cells);
+    }
+
+    // fuel and the properties drawn for it, on an empty cell, recounted by the caller
+    private void assignFuel(int cell, PointStates fuel) {
+        type(cell, fuel.ordinal());
+
+        switch (fuel) {
+            case LITTER -> {
+                burningTemperature(cell, conf.litterBurningTemperature());
+                pointHeight(cell, drawGaussian(cell, DRAW_HEIGHT, MEDIUM_LITTER_HEIGHT, Math.sqrt(MEDIUM_LITTER_HEIGHT_VARIANCE)));
+            }
+            case FLOOR -> {
+                burningTemperature(cell, conf.floorBurningTemperature());
+                pointHeight(cell, drawGaussian(cell, DRAW_HEIGHT, MEDIUM_FLOOR_HEIGHT, Math.sqrt(MEDIUM_FLOOR_HEIGHT_VARIANCE)));
+            }
+            case UNDERSTORY -> {
+                burningTemperature(cell, conf.understoryBurningTemperature());
+                pointHeight(cell, drawGaussian(cell, DRAW_HEIGHT, MEDIUM_UNDERSTORY_HEIGHT, Math.sqrt(MEDIUM_UNDERSTORY_HEIGHT_VARIANCE)));
+            }
+            case CONIFEROUS -> {
+                burningTemperature(cell, conf.coniferousBurningTemperature());
+                pointHeight(cell, drawGaussian(cell, DRAW_HEIGHT, MEDIUM_CONIFEROUS_HEIGHT, Math.sqrt(MEDIUM_CONIFEROUS_HEIGHT_VARIANCE)));
+            }
+            case DECIDUOUS -> {
+                burningTemperature(cell, conf.deciduousBurningTemperature());
+                pointHeight(cell, drawGaussian(cell, DRAW_HEIGHT, MEDIUM_DECIDUOUS_HEIGHT, Math.sqrt(MEDIUM_DECIDUOUS_HEIGHT_VARIANCE)));
+            }
+            default -> throw new IllegalArgumentException("Not a fuel type: " + fuel);
+        }
+    }
+
+    /**
+     * Bulk-loads {@code types.remaining()} cells of column x starting at row y, keeping the stored heights
+     * of all cells instead of drawing new ones, like {@link SimulationEngine#updatePoint} does for JSON maps.
+     * Buffer positions are not moved.
+     */
+    public void loadTerrainColumn(int x, int y, ByteBuffer types, IntBuffer elevations, FloatBuffer heights) {
+        int count = types.remaining();
+        if (y < 0 || y + count > height || x < 0 || x >= width) {
+            throw new IndexOutOfBoundsException("Column " + x + " rows " + y + ".." + (y + count) + " outside of " + width + "x" + height);
+        }
+        int start = index(x, y);
+        for (int i = 0; i < count; i++) {
+            int ordinal = types.get(types.position() + i);
+            if (ordinal < 0 || ordinal >= PointStates.FIRE.ordinal()) {
+                throw new IllegalArgumentException("Not a terrain type: " + ordinal);
+            }
+            int cell = start + i;
+            if (ordinal == PointStates.NO_FIRE.ordinal()) {
+                initializeEmpty(cell);
+            } else {
+                initializeFuel(cell, TYPES[ordinal]);
+            }
+            pointHeight(cell, heights.get(heights.position() + i));
+        }
+        for (int i = 0; i < count; i++) {
+            elevation(start + i, elevations.get(elevations.position() + i));
+        }
+    }
+
+    public void addFireSource(int cell) {
+        touch(cell);
+        temperature.set(cell, 0, 600.0f);
+        fireSource(cell, true);
+        onFire(cell, onFire(cell) | 1);
+        recount(cell);
+    }
+
+    public void update(int cell) {
+        FloatBuffer temperatures = temperature.chunk(cell);
+        FloatBuffer next = nextTemperature.chunk(cell);
+        int base = LevelChunks.offset(cell);
+        int compared = KERNEL.compare(temperatures, next, base, actualBurningTemperature(cell));
+
+        if ((compared & LevelKernel.MOVED) != 0) {
+            temperature.writable(cell).put(base, next, base, LEVELS);
+        }
+        updated(cell, compared);
+    }
+
+    /**
+     * update for the board cells from (inclusive) to to (exclusive), compared a chunk at a time over the
+     * contiguous levels of the cells
+     */
+    public void update(int from, int to) {
+        float[] burnTemps = BURN_TEMPERATURES.get();
+        int[] compared = COMPARED.get();
+        for (int start = from, end; start < to; start = end) {
+            end = Math.min(to, LevelChunks.chunkEnd(start));
+            int cells = end - start;
+            for (int c = 0; c < cells; c++) {
+                int cell = start + c;
+                burnTemps[c] = type(cell) == PointStates.NO_FIRE.ordinal()
+                        ? Float.POSITIVE_INFINITY : roundUp(actualBurningTemperature(cell));
+            }
+
+            int base = LevelChunks.offset(start);
+            FloatBuffer next = nextTemperature.chunk(start);
+            if (KERNEL.compare(temperature.chunk(start), next, base, cells, burnTemps, compared)) {
+                temperature.writable(start).put(base, next, base, cells * LEVELS);
+            }
+            for (int c = 0; c < cells; c++) {
+                updated(start + c, compared[c]);
+            }
+        }
+    }
+
+    // smallest float not below the value, floats reach it exactly when they reach the value
+    private static float roundUp(double value) {
+        float rounded = (float) value;
+        return rounded < value ? Math.nextUp(rounded) : rounded;
+    }
+
+    // bookkeeping of update once the next temperatures of the cell are its temperatures
+    private void updated(int cell, int compared) {
+        // empty cells have no burning temperature and would count every level as burning, they never burn
+        int fire = type(cell) == PointStates.NO_FIRE.ordinal() ? 0 : compared & ~LevelKernel.MOVED;
+        boolean moved = (compared & LevelKernel.MOVED) != 0;
+
+        // burning levels lost some of their state in calculateNewState, other cells only change when their
+        // temperatures moved or they caught fire
+        if (moved || onFire(cell) != 0 || fire != 0) {
+            changedAt(cell, generation);
+            // threads of ParallelStepper may write the same generation to a block at once
+            blockChangedAt[cell >>> CHANGE_BLOCK_SHIFT] = generation;
+        }
+        // state only drops on levels that were burning, so cells that neither were nor are burning keep their tally
+        boolean recount = (onFire(cell) | fire) != 0;
+        onFire(cell, fire);
+        if (recount) {
+            recount(cell);
+        }
+    }
+
+    private double actualBurningTemperature(int cell) {
+        return burningTemperature(cell) * humidity(cell) / STANDARD_HUMIDITY;
+    }
+
+    private void burn(int cell, double actualBurnTemp) {
+        int base = LevelChunks.offset(cell);
+        int fire = onFire(cell);
+        FloatBuffer temperatures = temperature.chunk(cell);
+        FloatBuffer states = fire != 0 ? state.writable(cell) : null;
+        FloatBuffer next = nextTemperature.writable(cell);
+        KERNEL.burn(states, temperatures, next, base, fire, actualBurnTemp, conf.airTemperature());
+    }
+
+    /**
+     * Computes next temperatures of the cell. Every draw reads only the start-of-tick state of the cell
+     * and its Moore neighbourhood and writes only this cell, so the result does not depend on the order
+     * cells are visited in. Draws whose outcome could not change anything are skipped.
+     */
+    public void calculateNewState(int cell, double windVelocity, Directions dir) {
+        Wind wind = wind(windVelocity, dir);
+
+        if (type(cell) != PointStates.NO_FIRE.ordinal()) {
+            double actualBurnTemp = actualBurningTemperature(cell);
+            burn(cell, actualBurnTemp);
+            spread(cell, actualBurnTemp);
+        }
+        gatherWind(cell, wind);
+    }
+
+    /**
+     * calculateNewState for the board cells from (inclusive) to to (exclusive). Each cell only writes its
+     * own next temperatures, so a chunk at a time every fuel cell is cooled in one pass over their
+     * contiguous levels, the burning ones are burnt one by one and then every cell draws its spread.
+     */
+    public void calculateNewState(int from, int to, double windVelocity, Directions dir) {
+        Wind wind = wind(windVelocity, dir);
+        for (int start = from, end; start < to; start = end) {
+            end = Math.min(to, LevelChunks.chunkEnd(start));
+            burnCells(start, end);
+            for (int cell = start; cell < end; cell++) {
+                if (type(cell) != PointStates.NO_FIRE.ordinal()) {
+                    spread(cell, actualBurningTemperature(cell));
+                }
+                gatherWind(cell, wind);
+            }
+        }
+    }
+
+    // burn for the fuel cells from (inclusive) to to (exclusive) of one chunk, empty cells are left alone
+    private void burnCells(int from, int to) {
+        double air = conf.airTemperature();
+        FloatBuffer temperatures = temperature.chunk(from);
+        FloatBuffer next = null;
+        int run = from;
+        for (int cell = from; cell <= to; cell++) {
+            if (cell == to || type(cell) == PointStates.NO_FIRE.ordinal()) {
+                if (cell > run) {
+                    next = next != null ? next : nextTemperature.writable(run);
+                    KERNEL.cool(temperatures, next, LevelChunks.offset(run), cell - run, air);
+                }
+                run = cell + 1;
+            }
+        }
+        for (int cell = from; cell < to; cell++) {
+            if (onFire(cell) != 0 && type(cell) != PointStates.NO_FIRE.ordinal()) {
+                burn(cell, actualBurningTemperature(cell));
+            }
+        }
+    }
+
+    // heat from burning neighbours and levels, after burn gave the cell its own next temperatures
+    private void spread(int cell, double actualBurnTemp) {
+        int base = LevelChunks.offset(cell);
+        FloatBuffer temperatures = temperature.chunk(cell);
+        FloatBuffer next = nextTemperature.writable(cell);
+
+        for (int j = 0; j < neighborOffsets.length; j++) {
+            int neighbor = cell + neighborOffsets[j];
+            float neighborTemperature = temperature.get(neighbor, 0);
+
+            if (neighborTemperature >= actualBurnTemp && next.get(base) != neighborTemperature) {
+                double necessaryProb = spreadProbability(elevation(cell) - elevation(neighbor), j >= 4);
+                if (draw(cell, DRAW_NEIGHBOR + j) < necessaryProb) {
+                    next.put(base, neighborTemperature);
+                }
+            }
+        }
+
+        // Spreading fire up and down
+        int fire = onFire(cell);
+        for (int i = 0; i < LEVELS - 1; i++) {
+            if ((fire & (1 << i)) != 0 && (fire & (1 << (i + 1))) == 0) {
+                if (draw(cell, DRAW_SPREAD_UP + i) < 0.2) {
+                    next.put(base + i + 1, temperatures.get(base + i));
+                }
+            }
+        }
+
+        for (int i = LEVELS - 1; i > 0; i--) {
+            if ((fire & (1 << i)) != 0 && (fire & (1 << (i - 1))) == 0) {
+                if (draw(cell, DRAW_SPREAD_DOWN + i) < 0.05) {
+                    next.put(base + i - 1, temperatures.get(base + i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Probability that heat spreads from a neighbour, which only depends on the difference in elevation, so
+     * the common differences come from a table
+     */
+    private static double spreadProbability(int elevationDifference, boolean diagonal) {
+        int d = Math.abs(elevationDifference);
+        if (d >= 0 && d < SPREAD_TABLE_SIZE) {
+            return diagonal ? DIAGONAL_SPREAD[d] : STRAIGHT_SPREAD[d];
+        }
+        return computeSpreadProbability(elevationDifference, diagonal);
+    }
+
+    private static double computeSpreadProbability(int elevationDifference, boolean diagonal) {
+        double distance = Math.sqrt(Math.pow(elevationDifference, 2) + Math.pow(DISTANCE, 2));
+        double probability = 0.1 / (1 + distance * 1);
+        if (diagonal) {
+            probability /= Math.sqrt(2);
+        }
+        return probability;
+    }
+
+    private Wind wind(double windVelocity, Directions dir) {
+        Wind current = wind;
+        if (current.velocity() == windVelocity && current.direction() == dir) {
+            return current;
+        }
+        current = Wind.of(windVelocity, dir);
+        wind = current;
+        return current;
+    }
+
+    /*
+     * Everything about the wind that is the same for every cell. Instances are immutable, so the threads of
+     * ParallelStepper may replace the one in use without further synchronisation.
+     */
+    private record Wind(double velocity, Directions direction, int index, double sinAngle, double probability) {
+        static Wind of(double velocity, Directions direction) {
+            int index = directionIndex(direction);
+            double angle = calculateFireAngle(velocity, W);
+            double multiplier = 1;
+            if (index > 3) {
+                multiplier = Math.sqrt(2);
+            }
+            return new Wind(velocity, direction, index, Math.sin(Math.toRadians(angle)), P * multiplier);
+        }
+    }
+
+    /*
+     * Wind carries heat from the upwind neighbour into this cell. It used to be pushed by the upwind
+     * cell straight into our temperature, which made the result depend on iteration order; pulling it
+     * here gives the same spread while every cell writes only its own state.
+     */
+    private void gatherWind(int cell, Wind wind) {
+        int source = windSource(cell, wind.index());
+        if (source < 0) {
+            return;
+        }
+
+        FloatBuffer sourceTemperatures = temperature.chunk(source);
+        int sourceBase = LevelChunks.offset(source);
+        FloatBuffer next = nextTemperature.chunk(cell);
+        int base = LevelChunks.offset(cell);
+        for (int k = LEVELS - 1; k >= 0; k--) {
+            int i = windLevel(source, cell, k, wind.sinAngle());
+            if (i >= 0 && i < LEVELS) {
+                float sourceTemperature = sourceTemperatures.get(sourceBase + k);
+                if (next.get(base + i) != sourceTemperature && draw(cell, DRAW_WIND + k) < wind.probability()) {
+                    next = nextTemperature.writable(cell);
+                    next.put(base + i, sourceTemperature);
+                }
+            }
+        }
+    }
+
+    // upwind neighbour that spreads into this cell, or -1 when there is none, the halo never has fuel
+    private int windSource(int cell, int direction) {
+        int source = cell - neighborOffsets[direction];
+        if (type(source) == PointStates.NO_FIRE.ordinal()) {
+            return -1;
+        }
+        return source;
+    }
+
+    // level of the target that level k of the source reaches, may fall outside [0, LEVELS)
+    private int windLevel(int source, int target, int k, double sinAngle) {
+        double newElevation = elevation(source) + pointHeight(source) * LEVEL_FRACTIONS[k] * sinAngle;
+        return (int) ((newElevation - elevation(target)) * LEVELS / pointHeight(target) / LEVEL_FRACTIONS[k]);
+    }
+
+    private static int directionIndex(Directions dir) {
+        return switch (dir) {
+            case NORTH -> 0;
+            case EAST -> 1;
+            case SOUTH -> 2;
+            case WEST -> 3;
+            case NORTHWEST -> 4;
+            case NORTHEAST -> 5;
+            case SOUTHEAST -> 6;
+            case SOUTHWEST -> 7;
+        };
+    }
+
+    /**
+     * A settled cell, surrounded only by settled cells, is left unchanged by a tick and draws no random numbers.
+     */
+    public boolean isSettled(int cell) {
+        if (type(cell) == PointStates.NO_FIRE.ordinal()) {
+            return !ignitesNeighbors(cell) && !receivesWind(cell);
+        }
+
+        if (onFire(cell) != 0) {
+            return false;
+        }
+        FloatBuffer temperatures = temperature.chunk(cell);
+        int base = LevelChunks.offset(cell);
+        for (int i = 0; i < LEVELS; i++) {
+            if (temperatures.get(base + i) != (float) max(conf.airTemperature(), temperatures.get(base + i) * (1 - FIRE_GROWTH_RATE))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean ignitesNeighbors(int cell) {
+        for (int j = 0; j < neighborOffsets.length; j++) {
+            int neighbor = cell + neighborOffsets[j];
+            if (type(neighbor) != PointStates.NO_FIRE.ordinal()
+                    && temperature.get(cell, 0) >= actualBurningTemperature(neighbor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean receivesWind(int cell) {
+        Wind wind = wind(conf.windVelocity(), conf.windDirection());
+        int source = windSource(cell, wind.index());
+        if (source < 0) {
+            return false;
+        }
+        for (int k = 0; k < LEVELS; k++) {
+            int i = windLevel(source, cell, k, wind.sinAngle());
+            if (i >= 0 && i < LEVELS && temperature.get(cell, i) != temperature.get(source, k)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the cell and its Moore neighbours in {@code into}, around the border that includes halo cells,
+     * see clearHalo
+     */
+    public void markNeighborhood(int cell, BitSet into) {
+        into.set(cell);
+        for (int offset : neighborOffsets) {
+            into.set(cell + offset);
+        }
+    }
+
+    private static double sigmoid(double x) {
+        return 1 / (1 + Math.exp(-x));
+    }
+
+    private static double calculateFireAngle(double windVelocity, double w) {
+        return 90 * (1 - sigmoid(w * windVelocity));
+    }
+
+    public PointStates getType(int cell) {
+        return TYPES[type(cell)];
+    }
+
+    public boolean isFireSource(int cell) {
+        return fireSource(cell);
+    }
+
+    public int getElevation(int cell) {
+        return elevation(cell);
+    }
+
+    public void setElevation(int cell, int value) {
+        checkTerrainWritable();
+        touch(cell);
+        elevation(cell, value);
+    }
+
+    public double getHeight(int cell) {
+        return pointHeight(cell);
+    }
+
+    public void setHeight(int cell, double value) {
+        checkTerrainWritable();
+        touch(cell);
+        pointHeight(cell, value);
+    }
+
+    public double getHumidity(int cell) {
+        return humidity(cell);
+    }
+
+    public float getState(int cell, int level) {
+        return state.get(cell, level);
+    }
+
+    public float getTemperature(int cell, int level) {
+        return temperature.get(cell, level);
+    }
+
+    public boolean isOnFire(int cell, int level) {
+        return (onFire(cell) & (1 << level)) != 0;
+    }
+
+    // index of the lowest burning level or -1
+    public int firstLevelOnFire(int cell) {
+        int fire = onFire(cell);
+        return fire == 0 ? -1 : Integer.numberOfTrailingZeros(fire);
+    }
+
+    public boolean isBurning(int cell) {
+        return onFire(cell) != 0;
+    }
+
+    public boolean isBurnt(int cell) {
+        FloatBuffer states = state.chunk(cell);
+        int base = LevelChunks.offset(cell);
+        for (int i = 0; i < LEVELS; i++) {
+            if (states.get(base + i) < 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * What the board shows of the cell, see VisibleState. The first burning level decides the fire colour,
+     * levels below it that lost state make the cell burnt.
+     */
+    public byte visibleState(int cell) {
+        if (type(cell) == PointStates.NO_FIRE.ordinal()) {
+            return VisibleState.encode(type(cell), false, VisibleState.FIRE_NONE);
+        }
+        FloatBuffer states = state.chunk(cell);
+        int base = LevelChunks.offset(cell);
+        int fire = onFire(cell);
+        boolean burnt = false;
+        for (int i = 0; i < LEVELS; i++) {
+            burnt |= states.get(base + i) < 1;
+            if ((fire & (1 << i)) != 0) {
+                float t = temperature.get(cell, i);
+                int bucket = t < 1000 ? VisibleState.FIRE_RED : t < 1200 ? VisibleState.FIRE_ORANGE : VisibleState.FIRE_GOLD;
+                return VisibleState.encode(type(cell), burnt, bucket);
+            }
+        }
+        return VisibleState.encode(type(cell), burnt, VisibleState.FIRE_NONE);
+    }
+
+    // checkpoint support, see Checkpointer
+
+    void restoreTick(long tick) {
+        this.tick = tick;
+    }
+
+    /**
+     * Writes everything a tick reads of the cell. Next temperatures are only written when an edit left them
+     * different from the temperatures, otherwise update made them equal.
+     */
+    void writeCell(DataOutput out, int cell) throws IOException {
+        out.writeByte(type(cell));
+        out.writeInt(elevation(cell));
+        out.writeDouble(pointHeight(cell));
+        out.writeDouble(humidity(cell));
+        out.writeDouble(burningTemperature(cell));
+        out.writeBoolean(fireSource(cell));
+        out.writeShort(onFire(cell));
+
+        boolean pending = false;
+        for (int i = 0; i < LEVELS; i++) {
+            out.writeFloat(state.get(cell, i));
+            out.writeFloat(temperature.get(cell, i));
+            pending |= nextTemperature.get(cell, i) != temperature.get(cell, i);
+        }
+        out.writeBoolean(pending);
+        if (pending) {
+            for (int i = 0; i < LEVELS; i++) {
+                out.writeFloat(nextTemperature.get(cell, i));
+            }
+        }
+    }
+
+    void readCell(DataInput in, int cell) throws IOException {
+        checkTerrainWritable();
+        touch(cell);
+        int ordinal = in.readByte();
+        if (ordinal < 0 || ordinal >= PointStates.FIRE.ordinal()) {
+            throw new IOException("Not a terrain type: " + ordinal);
+        }
+        type(cell, ordinal);
+        elevation(cell, in.readInt());
+        pointHeight(cell, in.readDouble());
+        humidity(cell, in.readDouble());
+        burningTemperature(cell, in.readDouble());
+        fireSource(cell, in.readBoolean());
+        onFire(cell, in.readShort());
+
+        for (int i = 0; i < LEVELS; i++) {
+            state.set(cell, i, in.readFloat());
+            temperature.set(cell, i, in.readFloat());
+        }
+        boolean pending = in.readBoolean();
+        for (int i = 0; i < LEVELS; i++) {
+            nextTemperature.set(cell, i, pending ? in.readFloat() : temperature.get(cell, i));
+        }
+        recount(cell);
+    }
+
+    // moves the cell between the statistics counters when what it counts towards changed
+    private void recount(int cell) {
+        int current = type(cell) == PointStates.NO_FIRE.ordinal() ? 0
+                : type(cell) | (isBurnt(cell) ? TALLY_BURNT : 0) | (onFire(cell) != 0 ? TALLY_BURNING : 0);
+        int previous = tally(cell);
+        if (current != previous) {
+            tally(cell, current);
+            count(previous, -1);
+            count(current, 1);
+        }
+    }
+
+    private void count(int code, int delta) {
+        if (code == 0) {
+            return;
+        }
+        counts.getAndAdd(COUNT_ALL, delta);
+        counts.getAndAdd((code & TALLY_BURNT) != 0 ? COUNT_BURNT : code & TALLY_TYPE, delta);
+        if ((code & TALLY_BURNING) != 0) {
+            counts.getAndAdd(COUNT_FIRE, delta);
+        }
+    }
+
+    /**
+     * Statistics from the counters kept up to date by every change, so reading them costs the same on any board
+     */
+    public BoardStatistics toBoardStatistics() {
+        long begin = Instrumentation.begin();
+        BoardStatistics statistics = new BoardStatistics(
+                counts.get(COUNT_ALL),
+                counts.get(COUNT_BURNT),
+                counts.get(COUNT_FIRE),
+                counts.get(PointStates.LITTER.ordinal()),
+                counts.get(PointStates.FLOOR.ordinal()),
+                counts.get(PointStates.UNDERSTORY.ordinal()),
+                counts.get(PointStates.CONIFEROUS.ordinal()),
+                counts.get(PointStates.DECIDUOUS.ordinal())
+        );
+        if (CHECK_STATISTICS) {
+            BoardStatistics recounted = recountStatistics();
+            if (!statistics.equals(recounted)) {
+                throw new IllegalStateException("Statistics counters " + statistics + " differ from a recount " + recounted);
+            }
+        }
+        Instrumentation.end(Phase.STATISTICS, begin);
+        return statistics;
+    }
+
+    /**
+     * Statistics counted over every cell, what the counters behind toBoardStatistics are checked against
+     */
+    public BoardStatistics recountStatistics() {
+        int allFieldsCount = 0;
+        int burntFieldsCount = 0;
+        int fireFieldsCount = 0;
+        int litterFieldsCount = 0;
+        int floorFieldsCount = 0;
+        int understoryFieldsCount = 0;
+        int coniferousFieldsCount = 0;
+        int deciduousFieldsCount = 0;
+
+        for (int cell = 0; cell < indexSize(); ++cell) {
+            PointStates cellType = getType(cell);
+            if (cellType != PointStates.NO_FIRE) {
+                boolean burntStatement = !isBurnt(cell);
+                if (!burntStatement) burntFieldsCount++;
+                if (isBurning(cell)) fireFieldsCount++;
+
+                allFieldsCount++;
+
+                if (cellType == PointStates.LITTER && burntStatement) litterFieldsCount++;
+                if (cellType == PointStates.FLOOR && burntStatement) floorFieldsCount++;
+                if (cellType == PointStates.UNDERSTORY && burntStatement) understoryFieldsCount++;
+                if (cellType == PointStates.CONIFEROUS && burntStatement) coniferousFieldsCount++;
+                if (cellType == PointStates.DECIDUOUS && burntStatement) deciduousFieldsCount++;
+            }
+        }
+
+        return new BoardStatistics(
+                allFieldsCount,
+                burntFieldsCount,
+                fireFieldsCount,
+                litterFieldsCount,
+                floorFieldsCount,
+                understoryFieldsCount,
+                coniferousFieldsCount,
+                deciduousFieldsCount
+        );
+    }
+
+    // per cell columns
+
+    private int type(int cell) {
+        return type.get(cell);
+    }
+
+    private void type(int cell, int value) {
+        type.set(cell, (byte) value);
+    }
+
+    private int elevation(int cell) {
+        return elevation.get(cell);
+    }
+
+    private void elevation(int cell, int value) {
+        elevation.set(cell, value);
+    }
+
+    private double pointHeight(int cell) {
+        return pointHeight.get(cell);
+    }
+
+    private void pointHeight(int cell, double value) {
+        pointHeight.set(cell, value);
+    }
+
+    private double humidity(int cell) {
+        return humidity.get(cell);
+    }
+
+    private void humidity(int cell, double value) {
+        humidity.set(cell, value);
+    }
+
+    private double burningTemperature(int cell) {
+        return burningTemperature.get(cell);
+    }
+
+    private void burningTemperature(int cell, double value) {
+        burningTemperature.set(cell, value);
+    }
+
+    private boolean fireSource(int cell) {
+        return fireSource.get(cell) != 0;
+    }
+
+    private void fireSource(int cell, boolean value) {
+        fireSource.set(cell, (byte) (value ? 1 : 0));
+    }
+
+    // bit i set when level i is burning
+    private int onFire(int cell) {
+        return onFire.get(cell);
+    }
+
+    private void onFire(int cell, int value) {
+        onFire.set(cell, (short) value);
+    }
+
+    private int changedAt(int cell) {
+        return changedAt.get(cell);
+    }
+
+    private void changedAt(int cell, int generation) {
+        changedAt.set(cell, generation);
+    }
+
+    private int tally(int cell) {
+        return tally.get(cell);
+    }
+
+    private void tally(int cell, int value) {
+        tally.set(cell, (byte) value);
+    }
+}
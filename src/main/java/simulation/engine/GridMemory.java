@@ -0,0 +1,32 @@
+package simulation.engine;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Memory of one grid, its per-cell columns and the chunks of its levels, opened by {@link GridStorage}.
+ * Closing it frees everything it handed out; afterwards the columns and chunks may not be used.
+ */
+interface GridMemory extends AutoCloseable {
+    CellColumn.OfByte bytes(int cells);
+
+    CellColumn.OfShort shorts(int cells);
+
+    CellColumn.OfInt ints(int cells);
+
+    CellColumn.OfDouble doubles(int cells);
+
+    // chunk of LevelChunks.CHUNK_FLOATS floats, contents undefined
+    FloatBuffer allocate();
+
+    // a chunk of this memory the grid no longer uses
+    void release(FloatBuffer chunk);
+
+    // read-only chunk of the same kind as allocate returns, so the stepping code only ever sees one
+    FloatBuffer uniform(float fill);
+
+    // bytes handed out off the heap so far, in use or kept for reuse, 0 on the heap
+    long reservedBytes();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,71 @@
+package simulation.engine;
+
+/**
+ * Where a grid keeps its cells. HEAP uses plain arrays the collector frees. OFF_HEAP uses segments of an
+ * arena per grid, which {@link Grid#close()} frees at once, so very large boards leave the heap small and
+ * flat and the collector has nothing to copy during a run. Grids on either storage behave the same.
+ * <p>
+ * Every per-cell value goes where the storage says: the levels and the type, elevation, height, humidity,
+ * burning temperature, burning levels, fire source, change generation and statistics tally of each cell.
+ * What an off-heap grid keeps on the heap is two bits per cell for the sets of board and edited cells, and
+ * a few bytes per block of cells for the change generations of blocks and the chunk references of the
+ * levels, under half a byte per cell. A frontier stepper adds two more bits per cell.
+ * <p>
+ * OFF_HEAP is built on java.lang.foreign, a preview API in Java 21, and is only available on a Java 21 JVM
+ * started with --enable-preview. HEAP needs neither.
+ */
+public enum GridStorage {
+    HEAP("Heap"),
+    OFF_HEAP("Off-heap");
+
+    private static final String OFF_HEAP_MEMORY = "simulation.engine.OffHeapMemory";
+
+    private final String description;
+
+    GridStorage(String description) {
+        this.description = description;
+    }
+
+    public boolean isAvailable() {
+        return this == HEAP || OffHeap.UNAVAILABLE == null;
+    }
+
+    // memory for a new grid, closed with the grid
+    GridMemory open() {
+        return switch (this) {
+            case HEAP -> new HeapMemory();
+            case OFF_HEAP -> openOffHeap();
+        };
+    }
+
+    private static GridMemory openOffHeap() {
+        if (OffHeap.UNAVAILABLE != null) {
+            throw new IllegalStateException("Off-heap grids need a Java 21 JVM started with --enable-preview", OffHeap.UNAVAILABLE);
+        }
+        try {
+            return (GridMemory) Class.forName(OFF_HEAP_MEMORY).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.description;
+    }
+
+    // loads the off-heap memory by name, the first time it is asked for, so heap grids never link against it
+    private static final class OffHeap {
+        // why the class cannot be loaded, null when it can
+        static final Throwable UNAVAILABLE = load();
+
+        private static Throwable load() {
+            try {
+                Class.forName(OFF_HEAP_MEMORY);
+                return null;
+            } catch (ClassNotFoundException | LinkageError e) {
+                return e;
+            }
+        }
+    }
+}
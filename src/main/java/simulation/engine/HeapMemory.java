@@ -0,0 +1,144 @@
+package simulation.engine;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Grid memory of plain arrays, left to the collector. Closing it frees nothing.
+ */
+final class HeapMemory implements GridMemory {
+
+    @Override
+    public CellColumn.OfByte bytes(int cells) {
+        return new Bytes(new byte[cells]);
+    }
+
+    @Override
+    public CellColumn.OfShort shorts(int cells) {
+        return new Shorts(new short[cells]);
+    }
+
+    @Override
+    public CellColumn.OfInt ints(int cells) {
+        return new Ints(new int[cells]);
+    }
+
+    @Override
+    public CellColumn.OfDouble doubles(int cells) {
+        return new Doubles(new double[cells]);
+    }
+
+    @Override
+    public FloatBuffer allocate() {
+        return FloatBuffer.allocate(LevelChunks.CHUNK_FLOATS);
+    }
+
+    @Override
+    public void release(FloatBuffer chunk) {
+    }
+
+    @Override
+    public FloatBuffer uniform(float fill) {
+        FloatBuffer chunk = allocate();
+        for (int i = 0; i < LevelChunks.CHUNK_FLOATS; i++) {
+            chunk.put(i, fill);
+        }
+        return chunk;
+    }
+
+    @Override
+    public long reservedBytes() {
+        return 0;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private record Bytes(byte[] values) implements CellColumn.OfByte {
+        @Override
+        public byte get(int cell) {
+            return values[cell];
+        }
+
+        @Override
+        public void set(int cell, byte value) {
+            values[cell] = value;
+        }
+
+        @Override
+        public void copyFrom(CellColumn source) {
+            System.arraycopy(((Bytes) source).values, 0, values, 0, values.length);
+        }
+
+        @Override
+        public void copyCells(int from, CellColumn target, int to, int count) {
+            System.arraycopy(values, from, ((Bytes) target).values, to, count);
+        }
+    }
+
+    private record Shorts(short[] values) implements CellColumn.OfShort {
+        @Override
+        public short get(int cell) {
+            return values[cell];
+        }
+
+        @Override
+        public void set(int cell, short value) {
+            values[cell] = value;
+        }
+
+        @Override
+        public void copyFrom(CellColumn source) {
+            System.arraycopy(((Shorts) source).values, 0, values, 0, values.length);
+        }
+
+        @Override
+        public void copyCells(int from, CellColumn target, int to, int count) {
+            System.arraycopy(values, from, ((Shorts) target).values, to, count);
+        }
+    }
+
+    private record Ints(int[] values) implements CellColumn.OfInt {
+        @Override
+        public int get(int cell) {
+            return values[cell];
+        }
+
+        @Override
+        public void set(int cell, int value) {
+            values[cell] = value;
+        }
+
+        @Override
+        public void copyFrom(CellColumn source) {
+            System.arraycopy(((Ints) source).values, 0, values, 0, values.length);
+        }
+
+        @Override
+        public void copyCells(int from, CellColumn target, int to, int count) {
+            System.arraycopy(values, from, ((Ints) target).values, to, count);
+        }
+    }
+
+    private record Doubles(double[] values) implements CellColumn.OfDouble {
+        @Override
+        public double get(int cell) {
+            return values[cell];
+        }
+
+        @Override
+        public void set(int cell, double value) {
+            values[cell] = value;
+        }
+
+        @Override
+        public void copyFrom(CellColumn source) {
+            System.arraycopy(((Doubles) source).values, 0, values, 0, values.length);
+        }
+
+        @Override
+        public void copyCells(int from, CellColumn target, int to, int count) {
+            System.arraycopy(values, from, ((Doubles) target).values, to, count);
+        }
+    }
+}
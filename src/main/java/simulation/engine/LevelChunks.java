@@ -0,0 +1,180 @@
+package simulation.engine;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per level values of a grid, LEVELS floats per cell, kept in chunks of CHUNK_CELLS consecutive cells.
+ * Every chunk starts out as one shared chunk holding only the fill value, which is never written; a chunk
+ * gets its own storage on the first write of a different value. Cells the fire never gets near, like the
+ * empty margins around a map, so cost no memory for their levels.
+ * <p>
+ * Cell indices stay those of the grid, so neighbours are found with the same offsets whether or not they
+ * are in the same chunk. Chunks may be allocated by several threads at once, see ParallelStepper. The
+ * chunks come from the {@link GridMemory} of the grid, which frees them when the grid is closed.
+ */
+final class LevelChunks {
+    static final int CHUNK_SHIFT = 10;
+    static final int CHUNK_CELLS = 1 << CHUNK_SHIFT;
+    static final int CHUNK_FLOATS = CHUNK_CELLS * Grid.LEVELS;
+    private static final int LEVELS = Grid.LEVELS;
+
+    private final GridMemory memory;
+    private final FloatBuffer uniform;
+    private final AtomicReferenceArray<FloatBuffer> chunks;
+
+    LevelChunks(int cells, float fill, GridMemory memory) {
+        this.memory = memory;
+        this.uniform = memory.uniform(fill);
+        this.chunks = new AtomicReferenceArray<>((cells + CHUNK_CELLS - 1) >>> CHUNK_SHIFT);
+        for (int i = 0; i < chunks.length(); i++) {
+            chunks.setPlain(i, uniform);
+        }
+    }
+
+    private LevelChunks(LevelChunks base, GridMemory memory) {
+        this.memory = memory;
+        this.uniform = base.uniform;
+        this.chunks = new AtomicReferenceArray<>(base.chunks.length());
+        for (int i = 0; i < chunks.length(); i++) {
+            chunks.setPlain(i, uniform);
+        }
+        copyFrom(base);
+    }
+
+    // copy with its chunks in the given memory, sharing the uniform chunks of this one
+    LevelChunks copy(GridMemory memory) {
+        return new LevelChunks(this, memory);
+    }
+
+    // takes over the values of a copy, sharing its uniform chunks
+    void copyFrom(LevelChunks base) {
+        if (base.uniform != uniform || base.chunks.length() != chunks.length()) {
+            throw new IllegalArgumentException("Chunks are not a copy of each other");
+        }
+        for (int i = 0; i < chunks.length(); i++) {
+            FloatBuffer chunk = base.chunks.get(i);
+            FloatBuffer own = chunks.get(i);
+            if (chunk == uniform) {
+                if (own != uniform) {
+                    chunks.set(i, uniform);
+                    memory.release(own);
+                }
+            } else {
+                if (own == uniform) {
+                    own = memory.allocate();
+                    chunks.set(i, own);
+                }
+                own.put(0, chunk, 0, CHUNK_FLOATS);
+            }
+        }
+    }
+
+    /**
+     * Copies the levels of count consecutive cells of other chunks with the same fill value, for cells that
+     * still hold the fill value here. Cells in uniform chunks of the source are skipped, so only chunks the
+     * source had storage for get some here.
+     */
+    void copyCells(LevelChunks from, int fromCell, int toCell, int count) {
+        for (int i = 0; i < count; i++) {
+            FloatBuffer source = from.chunk(fromCell + i);
+            if (source == from.uniform) {
+                continue;
+            }
+            int base = offset(fromCell + i);
+            for (int level = 0; level < LEVELS; level++) {
+                set(toCell + i, level, source.get(base + level));
+            }
+        }
+    }
+
+    // position of level 0 of the cell in the buffer returned by chunk or writable
+    static int offset(int cell) {
+        return (cell & (CHUNK_CELLS - 1)) * LEVELS;
+    }
+
+    // first cell of the chunk after the one of the cell
+    static int chunkEnd(int cell) {
+        return (cell | (CHUNK_CELLS - 1)) + 1;
+    }
+
+    /**
+     * Buffer holding the levels of the cell, only to be read as it may be the shared uniform chunk
+     */
+    FloatBuffer chunk(int cell) {
+        return chunks.getAcquire(cell >>> CHUNK_SHIFT);
+    }
+
+    /**
+     * Buffer holding the levels of the cell, allocated for the chunk of the cell if it had none yet
+     */
+    FloatBuffer writable(int cell) {
+        int index = cell >>> CHUNK_SHIFT;
+        FloatBuffer chunk = chunks.getAcquire(index);
+        if (chunk != uniform) {
+            return chunk;
+        }
+        FloatBuffer allocated = memory.allocate();
+        allocated.put(0, uniform, 0, CHUNK_FLOATS);
+        FloatBuffer witness = chunks.compareAndExchangeRelease(index, uniform, allocated);
+        if (witness == uniform) {
+            return allocated;
+        }
+        memory.release(allocated);
+        return witness;
+    }
+
+    float get(int cell, int level) {
+        return chunk(cell).get(offset(cell) + level);
+    }
+
+    void set(int cell, int level, float value) {
+        FloatBuffer chunk = chunk(cell);
+        int position = offset(cell) + level;
+        if (chunk.get(position) == value) {
+            return;
+        }
+        if (chunk == uniform) {
+            chunk = writable(cell);
+        }
+        chunk.put(position, value);
+    }
+
+    void fill(int cell, float value) {
+        FloatBuffer chunk = chunk(cell);
+        int base = offset(cell);
+        for (int i = 0; i < LEVELS; i++) {
+            if (chunk.get(base + i) != value) {
+                if (chunk == uniform) {
+                    chunk = writable(cell);
+                }
+                chunk.put(base + i, value);
+            }
+        }
+    }
+
+    /**
+     * Gives chunks back to the shared uniform chunk when all their values are the fill value again, not to
+     * be called during a step
+     */
+    void trim() {
+        for (int i = 0; i < chunks.length(); i++) {
+            FloatBuffer chunk = chunks.get(i);
+            if (chunk != uniform && chunk.mismatch(uniform) < 0) {
+                chunks.set(i, uniform);
+                memory.release(chunk);
+            }
+        }
+    }
+
+    // chunks with their own storage
+    int allocatedChunks() {
+        int allocated = 0;
+        for (int i = 0; i < chunks.length(); i++) {
+            if (chunks.get(i) != uniform) {
+                allocated++;
+            }
+        }
+        return allocated;
+    }
+}
@@ -0,0 +1,52 @@
+package simulation.engine;
+
+import java.nio.FloatBuffer;
+
+/**
+ * The per level arithmetic of a tick, positioned at base in the chunks of LevelChunks. Levels of consecutive
+ * cells are contiguous there, so the work every cell shares, cooling and comparing, also comes for a run of
+ * cells; burning stays per cell for the few cells on fire. select picks the implementation once at startup: vectorised when the jdk.incubator.vector
+ * module is present (run with --add-modules jdk.incubator.vector), scalar otherwise or when
+ * -Dsimulation.scalarKernels=true. Both give bit-identical results.
+ */
+interface LevelKernel {
+    // set in the result of compare when the next temperatures differ from the temperatures
+    int MOVED = 1 << Grid.LEVELS;
+
+    /**
+     * Burning levels lose state and heat up, the others cool down towards the air temperature. states is
+     * only used, and may be null, when fire is 0.
+     */
+    void burn(FloatBuffer states, FloatBuffer temperatures, FloatBuffer next, int base, int fire,
+              double actualBurnTemp, double airTemperature);
+
+    /**
+     * Levels whose next temperature reaches the burning temperature as a bit mask, with MOVED set when any
+     * next temperature differs from its temperature
+     */
+    int compare(FloatBuffer temperatures, FloatBuffer next, int base, double actualBurnTemp);
+
+    /**
+     * burn with fire 0 for the cells consecutive cells starting at base
+     */
+    void cool(FloatBuffer temperatures, FloatBuffer next, int base, int cells, double airTemperature);
+
+    /**
+     * compare for the cells consecutive cells starting at base, against the burning temperature of each cell
+     * rounded up to the next float, which gives the same bits as comparing against the double. Results go to
+     * compared, the return value tells whether any cell moved.
+     */
+    boolean compare(FloatBuffer temperatures, FloatBuffer next, int base, int cells, float[] burnTemps, int[] compared);
+
+    static LevelKernel select() {
+        if (!Boolean.getBoolean("simulation.scalarKernels") && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // loaded by name so nothing links against the module when it is missing
+                return (LevelKernel) Class.forName("simulation.engine.VectorLevelKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // fall back to scalar code
+            }
+        }
+        return new ScalarLevelKernel();
+    }
+}
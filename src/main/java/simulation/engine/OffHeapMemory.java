@@ -0,0 +1,194 @@
+package simulation.engine;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayDeque;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_DOUBLE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT;
+
+/**
+ * Grid memory of segments of a shared arena, so the threads of ParallelStepper and TerrainGenerator can use
+ * them, and {@link #close()} frees all of them at once. Level chunks the grid gives back during a run are
+ * kept for its next ones and only freed with the rest.
+ * <p>
+ * This is the only class using java.lang.foreign, a preview API in Java 21, so only off-heap grids need a
+ * JVM started with --enable-preview. {@link GridStorage} loads it by name when one is opened.
+ */
+final class OffHeapMemory implements GridMemory {
+    private static final long CHUNK_BYTES = (long) LevelChunks.CHUNK_FLOATS * Float.BYTES;
+
+    private final Arena arena = Arena.ofShared();
+    private final ArrayDeque<FloatBuffer> freeChunks = new ArrayDeque<>();
+    private long reservedBytes;
+
+    @Override
+    public CellColumn.OfByte bytes(int cells) {
+        return new Bytes(segment(JAVA_BYTE, cells));
+    }
+
+    @Override
+    public CellColumn.OfShort shorts(int cells) {
+        return new Shorts(segment(JAVA_SHORT, cells));
+    }
+
+    @Override
+    public CellColumn.OfInt ints(int cells) {
+        return new Ints(segment(JAVA_INT, cells));
+    }
+
+    @Override
+    public CellColumn.OfDouble doubles(int cells) {
+        return new Doubles(segment(JAVA_DOUBLE, cells));
+    }
+
+    // zeroed, arenas clear what they allocate
+    private synchronized MemorySegment segment(ValueLayout layout, int cells) {
+        long bytes = layout.byteSize() * cells;
+        reservedBytes += bytes;
+        return arena.allocate(bytes, layout.byteAlignment());
+    }
+
+    @Override
+    public FloatBuffer allocate() {
+        synchronized (this) {
+            FloatBuffer chunk = freeChunks.poll();
+            return chunk != null ? chunk : newChunk();
+        }
+    }
+
+    @Override
+    public synchronized void release(FloatBuffer chunk) {
+        freeChunks.push(chunk);
+    }
+
+    @Override
+    public FloatBuffer uniform(float fill) {
+        FloatBuffer chunk;
+        synchronized (this) {
+            chunk = newChunk();
+        }
+        for (int i = 0; i < LevelChunks.CHUNK_FLOATS; i++) {
+            chunk.put(i, fill);
+        }
+        return chunk;
+    }
+
+    private FloatBuffer newChunk() {
+        reservedBytes += CHUNK_BYTES;
+        return arena.allocate(CHUNK_BYTES, Float.BYTES).asByteBuffer().order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    @Override
+    public synchronized long reservedBytes() {
+        return reservedBytes;
+    }
+
+    /**
+     * Frees the memory, using a column or chunk afterwards throws IllegalStateException
+     */
+    @Override
+    public synchronized void close() {
+        if (arena.scope().isAlive()) {
+            arena.close();
+            freeChunks.clear();
+            reservedBytes = 0;
+        }
+    }
+
+    private record Bytes(MemorySegment values) implements CellColumn.OfByte {
+        @Override
+        public byte get(int cell) {
+            return values.get(JAVA_BYTE, cell);
+        }
+
+        @Override
+        public void set(int cell, byte value) {
+            values.set(JAVA_BYTE, cell, value);
+        }
+
+        @Override
+        public void copyFrom(CellColumn source) {
+            values.copyFrom(((Bytes) source).values);
+        }
+
+        @Override
+        public void copyCells(int from, CellColumn target, int to, int count) {
+            MemorySegment.copy(values, JAVA_BYTE, from, ((Bytes) target).values, JAVA_BYTE, to, count);
+        }
+    }
+
+    private record Shorts(MemorySegment values) implements CellColumn.OfShort {
+        @Override
+        public short get(int cell) {
+            return values.getAtIndex(JAVA_SHORT, cell);
+        }
+
+        @Override
+        public void set(int cell, short value) {
+            values.setAtIndex(JAVA_SHORT, cell, value);
+        }
+
+        @Override
+        public void copyFrom(CellColumn source) {
+            values.copyFrom(((Shorts) source).values);
+        }
+
+        @Override
+        public void copyCells(int from, CellColumn target, int to, int count) {
+            MemorySegment.copy(values, JAVA_SHORT, from * JAVA_SHORT.byteSize(), ((Shorts) target).values, JAVA_SHORT,
+                    to * JAVA_SHORT.byteSize(), count);
+        }
+    }
+
+    private record Ints(MemorySegment values) implements CellColumn.OfInt {
+        @Override
+        public int get(int cell) {
+            return values.getAtIndex(JAVA_INT, cell);
+        }
+
+        @Override
+        public void set(int cell, int value) {
+            values.setAtIndex(JAVA_INT, cell, value);
+        }
+
+        @Override
+        public void copyFrom(CellColumn source) {
+            values.copyFrom(((Ints) source).values);
+        }
+
+        @Override
+        public void copyCells(int from, CellColumn target, int to, int count) {
+            MemorySegment.copy(values, JAVA_INT, from * JAVA_INT.byteSize(), ((Ints) target).values, JAVA_INT,
+                    to * JAVA_INT.byteSize(), count);
+        }
+    }
+
+    private record Doubles(MemorySegment values) implements CellColumn.OfDouble {
+        @Override
+        public double get(int cell) {
+            return values.getAtIndex(JAVA_DOUBLE, cell);
+        }
+
+        @Override
+        public void set(int cell, double value) {
+            values.setAtIndex(JAVA_DOUBLE, cell, value);
+        }
+
+        @Override
+        public void copyFrom(CellColumn source) {
+            values.copyFrom(((Doubles) source).values);
+        }
+
+        @Override
+        public void copyCells(int from, CellColumn target, int to, int count) {
+            MemorySegment.copy(values, JAVA_DOUBLE, from * JAVA_DOUBLE.byteSize(), ((Doubles) target).values, JAVA_DOUBLE,
+                    to * JAVA_DOUBLE.byteSize(), count);
+        }
+    }
+}
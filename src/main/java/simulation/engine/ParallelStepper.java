@@ -0,0 +1,79 @@
+package simulation.engine;
+
+import simulation.instrumentation.Instrumentation;
+import simulation.instrumentation.Phase;
+import simulation.records.BoardConfig;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Visits every cell like {@link FullScanStepper}, split into column bands processed on a ForkJoinPool.
+ * A cell only writes its own state and reads the start-of-tick temperatures of its neighbours, so bands
+ * need no synchronisation apart from the barrier between the calculate and update phases.
+ * <p>
+ * Every tick visits the whole board, burning or not, so the work grows with the board while that of
+ * {@link FrontierStepper} grows with the fire. PARALLEL pays off when the fire covers a large share of a
+ * large board and spare cores are free; on sparse fires, or with the cores busy with an ensemble, FRONTIER
+ * on one thread does less work. SimulationBenchmark compares the modes and pool sizes.
+ */
+public class ParallelStepper implements Stepper {
+    private static final int MIN_BAND_CELLS = 16 * 1024;
+
+    private final Grid grid;
+    private final ForkJoinPool pool;
+
+    public ParallelStepper(Grid grid, ForkJoinPool pool) {
+        this.grid = grid;
+        this.pool = pool;
+    }
+
+    @Override
+    public void step() {
+        long begin = Instrumentation.begin();
+        pool.invoke(new Band(0, grid.width(), true));
+        Instrumentation.end(Phase.CALCULATE, begin);
+
+        begin = Instrumentation.begin();
+        pool.invoke(new Band(0, grid.width(), false));
+        Instrumentation.end(Phase.UPDATE, begin);
+        grid.advanceTick();
+    }
+
+    @Override
+    public int activeCells() {
+        return grid.cells();
+    }
+
+    private class Band extends RecursiveAction {
+        private final int fromX;
+        private final int toX;
+        private final boolean calculate;
+
+        Band(int fromX, int toX, boolean calculate) {
+            this.fromX = fromX;
+            this.toX = toX;
+            this.calculate = calculate;
+        }
+
+        @Override
+        protected void compute() {
+            if (toX - fromX > 1 && (long) (toX - fromX) * grid.height() > MIN_BAND_CELLS) {
+                int middle = (fromX + toX) >>> 1;
+                invokeAll(new Band(fromX, middle, calculate), new Band(middle, toX, calculate));
+                return;
+            }
+
+            int height = grid.height();
+            BoardConfig conf = grid.config();
+            for (int x = fromX; x < toX; x++) {
+                int column = grid.index(x, 0);
+                if (calculate) {
+                    grid.calculateNewState(column, column + height, conf.windVelocity(), conf.windDirection());
+                } else {
+                    grid.update(column, column + height);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package simulation.engine;
+
+import java.nio.FloatBuffer;
+
+import static java.lang.Math.max;
+import static simulation.engine.Grid.FIRE_GROWTH_RATE;
+import static simulation.engine.Grid.STATE_DECAY;
+
+/**
+ * One level at a time, works on any buffer
+ */
+final class ScalarLevelKernel implements LevelKernel {
+    private static final int LEVELS = Grid.LEVELS;
+
+    @Override
+    public void burn(FloatBuffer states, FloatBuffer temperatures, FloatBuffer next, int base, int fire,
+                     double actualBurnTemp, double airTemperature) {
+        for (int i = 0; i < LEVELS; i++) {
+            if ((fire & (1 << i)) != 0) {
+                double nextState = states.get(base + i) * (1 - STATE_DECAY * temperatures.get(base + i) / actualBurnTemp);
+                states.put(base + i, (float) nextState);
+                next.put(base + i, (float) (temperatures.get(base + i) * (1 + FIRE_GROWTH_RATE) * nextState));
+            } else {
+                next.put(base + i, (float) max(airTemperature, temperatures.get(base + i) * (1 - FIRE_GROWTH_RATE)));
+            }
+        }
+    }
+
+    @Override
+    public int compare(FloatBuffer temperatures, FloatBuffer next, int base, double actualBurnTemp) {
+        int fire = 0;
+        boolean moved = false;
+        for (int i = 0; i < LEVELS; i++) {
+            moved |= temperatures.get(base + i) != next.get(base + i);
+            if (next.get(base + i) >= actualBurnTemp) {
+                fire |= 1 << i;
+            }
+        }
+        return moved ? fire | MOVED : fire;
+    }
+
+    @Override
+    public void cool(FloatBuffer temperatures, FloatBuffer next, int base, int cells, double airTemperature) {
+        for (int i = base; i < base + cells * LEVELS; i++) {
+            next.put(i, (float) max(airTemperature, temperatures.get(i) * (1 - FIRE_GROWTH_RATE)));
+        }
+    }
+
+    @Override
+    public boolean compare(FloatBuffer temperatures, FloatBuffer next, int base, int cells, float[] burnTemps, int[] compared) {
+        boolean moved = false;
+        for (int c = 0; c < cells; c++) {
+            int fire = 0;
+            boolean cellMoved = false;
+            for (int i = base + c * LEVELS, level = 0; level < LEVELS; i++, level++) {
+                cellMoved |= temperatures.get(i) != next.get(i);
+                if (next.get(i) >= burnTemps[c]) {
+                    fire |= 1 << level;
+                }
+            }
+            compared[c] = cellMoved ? fire | MOVED : fire;
+            moved |= cellMoved;
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,176 @@
+package simulation.engine;
+
+import simulation.PointStates;
+import simulation.instrumentation.Instrumentation;
+import simulation.records.BoardConfig;
+import simulation.records.BoardStatistics;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * UI-free simulation core: the grid, map generation, edits, stepping and statistics.
+ * The Swing board and the headless runner are both thin clients of this class.
+ */
+public class SimulationEngine {
+    public static final int MAP_OFFSET_X = 8;
+    public static final int MAP_OFFSET_Y = 5;
+
+    private final BoardConfig boardConfig;
+    private final GridStorage storage;
+    private long seed;
+    private Grid grid;
+    private SteppingMode steppingMode = SteppingMode.FULL_SCAN;
+    private Stepper stepper;
+
+    public SimulationEngine(int length, int height, BoardConfig boardConfig, long seed) {
+        this(length, height, boardConfig, seed, GridStorage.HEAP);
+    }
+
+    public SimulationEngine(int length, int height, BoardConfig boardConfig, long seed, GridStorage storage) {
+        this.boardConfig = boardConfig;
+        this.storage = storage;
+        this.seed = seed;
+        initialize(length, height);
+    }
+
+    // engine around a restored grid, see Checkpointer
+    SimulationEngine(Grid grid, SteppingMode steppingMode) {
+        this.boardConfig = grid.config();
+        this.storage = grid.storage();
+        this.seed = grid.seed();
+        this.grid = grid;
+        this.steppingMode = steppingMode;
+        this.stepper = steppingMode.create(grid);
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    public BoardConfig getBoardConfig() {
+        return boardConfig;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getTick() {
+        return grid.tick();
+    }
+
+    public SteppingMode getSteppingMode() {
+        return steppingMode;
+    }
+
+    public void setSteppingMode(SteppingMode steppingMode) {
+        this.steppingMode = steppingMode;
+        this.stepper = steppingMode.create(grid);
+    }
+
+    // new grid with a freshly generated map, the previous one is closed
+    public void initialize(int length, int height) {
+        if (grid != null) {
+            grid.close();
+        }
+        grid = new Grid(length, height, boardConfig, seed, storage);
+        stepper = steppingMode.create(grid);
+        terrain().generate(grid, 0, 0);
+    }
+
+    /**
+     * Grows the board to at least the given size, keeping the state of every cell and generating the part of
+     * the map the board cut off before. The board never shrinks, so nothing is lost when asked for less.
+     *
+     * @return whether the board grew
+     */
+    public boolean grow(int length, int height) {
+        Grid previous = grid;
+        int width = Math.max(length, previous.width());
+        height = Math.max(height, previous.height());
+        if (width == previous.width() && height == previous.height()) {
+            return false;
+        }
+        grid = previous.grown(width, height);
+        previous.close();
+        stepper = steppingMode.create(grid);
+        terrain().generate(grid, previous.width(), previous.height());
+        return true;
+    }
+
+    public void regenerateMap(int length, int height) {
+        seed = CounterRandom.nextSeed(seed);
+        initialize(length, height);
+    }
+
+    // the map at the offsets of the board, with its clearings set by pointPercentage
+    private TerrainGenerator terrain() {
+        return new TerrainGenerator(MAP_OFFSET_X, MAP_OFFSET_Y, boardConfig.mapWidth(), boardConfig.mapHeight(),
+                boardConfig.pointPercentage(), ForkJoinPool.commonPool());
+    }
+
+    public void clear() {
+        for (int x = 0; x < grid.width(); ++x) {
+            for (int y = 0; y < grid.height(); ++y) {
+                grid.initializeEmpty(grid.index(x, y));
+            }
+        }
+        grid.trimChunks();
+    }
+
+    /**
+     * Applies one point of a saved map, the shape of MapShapeAdapter.PointSink so maps can be streamed in.
+     * The stored height replaces the one drawn for the fuel, like {@link Grid#loadTerrainColumn} does, unless
+     * it is NaN for a map without heights.
+     */
+    public void updatePoint(int x, int y, int elevation, float height, PointStates state) {
+        if (!grid.contains(x, y)) {
+            throw new IllegalArgumentException("Point outside of the grid: " + x + "," + y);
+        }
+        int cell = grid.index(x, y);
+        grid.setElevation(cell, elevation);
+
+        switch (state) {
+            case LITTER, FLOOR, UNDERSTORY, CONIFEROUS, DECIDUOUS -> grid.initializeFuel(cell, state);
+            default -> {
+            }
+        }
+        if (!Float.isNaN(height)) {
+            grid.setHeight(cell, height);
+        }
+    }
+
+    /**
+     * Applies a drawing tool to a cell, FIRE adds a fire source and NO_FIRE empties the cell
+     */
+    public void edit(int x, int y, PointStates editType) {
+        int cell = grid.index(x, y);
+        switch (editType) {
+            case LITTER, FLOOR, UNDERSTORY, CONIFEROUS, DECIDUOUS -> grid.initializeFuel(cell, editType);
+            case FIRE -> grid.addFireSource(cell);
+            default -> grid.initializeEmpty(cell);
+        }
+    }
+
+    // single iteration
+    public void step() {
+        long begin = Instrumentation.begin();
+        if (begin == 0) {
+            stepper.step();
+            return;
+        }
+        long allocated = Instrumentation.allocatedBytes();
+        stepper.step();
+        Instrumentation.endTick(begin, allocated, grid.tick(), steppingMode.name(), stepper.activeCells());
+    }
+
+    public void run(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            step();
+        }
+    }
+
+    public BoardStatistics toBoardStatistics() {
+        return grid.toBoardStatistics();
+    }
+}
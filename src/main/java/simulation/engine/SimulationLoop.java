@@ -0,0 +1,216 @@
+package simulation.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs the engine on its own thread. The engine belongs to that thread: other threads change it only through
+ * commands, which run between ticks, and see it only through frames the publisher captures on that thread.
+ * <p>
+ * While running the loop steps as fast as the tick delay allows, independently of how often frames are
+ * published, so several ticks may pass between two frames. Frames are published at most once per frame
+ * interval while running, and right away after commands, single steps and pausing. Requested frames are
+ * held to the frame interval too, so requesting one per mouse event costs no more than running.
+ */
+public class SimulationLoop {
+    public static final long DEFAULT_FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+
+    private final SimulationEngine engine;
+    private final Thread thread;
+    private final Queue<Consumer<SimulationEngine>> commands = new ArrayDeque<>();
+
+    // guarded by this
+    private boolean running;
+    private int pendingSteps;
+    private long tickDelayNanos;
+    private boolean framePending = true;
+    private boolean shutdown;
+
+    private final long frameNanos;
+    private volatile Consumer<SimulationEngine> tickListener = engine -> {
+    };
+    private volatile Consumer<SimulationEngine> framePublisher = engine -> {
+    };
+    private volatile Consumer<RuntimeException> errorHandler = exception -> exception.printStackTrace();
+
+    public SimulationLoop(SimulationEngine engine) {
+        this(engine, DEFAULT_FRAME_NANOS);
+    }
+
+    public SimulationLoop(SimulationEngine engine, long frameNanos) {
+        this.engine = engine;
+        this.frameNanos = frameNanos;
+        this.thread = new Thread(this::loop, "simulation");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Called on the simulation thread after every tick
+     */
+    public void setTickListener(Consumer<SimulationEngine> tickListener) {
+        this.tickListener = tickListener;
+    }
+
+    /**
+     * Called on the simulation thread whenever a frame is due, to capture what is to be shown
+     */
+    public void setFramePublisher(Consumer<SimulationEngine> framePublisher) {
+        this.framePublisher = framePublisher;
+    }
+
+    /**
+     * Called on the simulation thread when a command, a tick or a listener throws. A failed command is
+     * skipped, a failed tick or frame pauses the loop; either way the loop goes on with what comes next.
+     */
+    public void setErrorHandler(Consumer<RuntimeException> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    public synchronized void setRunning(boolean running) {
+        this.running = running;
+        framePending = true;
+        notifyAll();
+    }
+
+    // a single tick, while paused
+    public synchronized void step() {
+        pendingSteps++;
+        notifyAll();
+    }
+
+    // pause between two ticks while running, 0 runs as fast as possible
+    public synchronized void setTickDelay(long delay, TimeUnit unit) {
+        this.tickDelayNanos = unit.toNanos(delay);
+        notifyAll();
+    }
+
+    /**
+     * Runs the command on the simulation thread before the next tick, commands run in the order submitted.
+     * Commands submitted while a batch runs wait for the tick after it when one is due.
+     */
+    public synchronized void submit(Consumer<SimulationEngine> command) {
+        commands.add(command);
+        notifyAll();
+    }
+
+    // publishes a frame within a frame interval, even when paused
+    public synchronized void requestFrame() {
+        framePending = true;
+        notifyAll();
+    }
+
+    private void loop() {
+        long lastTick = 0;
+        long lastFrame = 0;
+        List<Consumer<SimulationEngine>> batch = new ArrayList<>();
+        while (true) {
+            boolean tick;
+            synchronized (this) {
+                while (true) {
+                    if (shutdown) {
+                        return;
+                    }
+                    if (!commands.isEmpty() || pendingSteps > 0) {
+                        break;
+                    }
+                    long now = System.nanoTime();
+                    long untilFrame = framePending ? lastFrame + frameNanos - now : Long.MAX_VALUE;
+                    if (untilFrame <= 0) {
+                        break;
+                    }
+                    if (running) {
+                        long untilTick = lastTick + tickDelayNanos - now;
+                        if (untilTick <= 0) {
+                            break;
+                        }
+                        waitNanos(Math.min(untilTick, untilFrame));
+                    } else {
+                        waitNanos(framePending ? untilFrame : 0);
+                    }
+                }
+                // the commands queued so far run as a batch followed by a tick that is due, so a stream of
+                // commands, like the edits of a drag, does not hold up the ticks
+                batch.addAll(commands);
+                commands.clear();
+                tick = pendingSteps > 0 || running && System.nanoTime() - lastTick >= tickDelayNanos;
+                if (tick && pendingSteps > 0) {
+                    pendingSteps--;
+                }
+            }
+
+            for (Consumer<SimulationEngine> command : batch) {
+                try {
+                    command.accept(engine);
+                } catch (RuntimeException e) {
+                    errorHandler.accept(e);
+                }
+            }
+            boolean publish = !batch.isEmpty() || !tick;
+            batch.clear();
+            if (tick) {
+                lastTick = System.nanoTime();
+                try {
+                    engine.step();
+                    tickListener.accept(engine);
+                } catch (RuntimeException e) {
+                    fail(e);
+                }
+                publish |= System.nanoTime() - lastFrame >= frameNanos || !isRunning();
+            }
+
+            synchronized (this) {
+                if (!publish && !(framePending && System.nanoTime() - lastFrame >= frameNanos)) {
+                    continue;
+                }
+                framePending = false;
+            }
+            try {
+                framePublisher.accept(engine);
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+            lastFrame = System.nanoTime();
+        }
+    }
+
+    // pauses instead of failing the same way on every tick or frame
+    private void fail(RuntimeException e) {
+        synchronized (this) {
+            running = false;
+        }
+        errorHandler.accept(e);
+    }
+
+    // waits on this, 0 waits until notified
+    private void waitNanos(long nanos) {
+        try {
+            if (nanos == 0) {
+                wait();
+            } else {
+                TimeUnit.NANOSECONDS.timedWait(this, nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            shutdown = true;
+        }
+    }
+}
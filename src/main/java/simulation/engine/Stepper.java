@@ -0,0 +1,11 @@
+package simulation.engine;
+
+/**
+ * Strategy advancing a {@link Grid} by a single tick
+ */
+public interface Stepper {
+    void step();
+
+    // cells visited by the last step
+    int activeCells();
+}
@@ -0,0 +1,28 @@
+package simulation.engine;
+
+import java.util.concurrent.ForkJoinPool;
+
+public enum SteppingMode {
+    FULL_SCAN("Full Scan"),
+    FRONTIER("Active Frontier"),
+    PARALLEL("Parallel");
+
+    private final String description;
+
+    SteppingMode(String description) {
+        this.description = description;
+    }
+
+    public Stepper create(Grid grid) {
+        return switch (this) {
+            case FULL_SCAN -> new FullScanStepper(grid);
+            case FRONTIER -> new FrontierStepper(grid);
+            case PARALLEL -> new ParallelStepper(grid, ForkJoinPool.commonPool());
+        };
+    }
+
+    @Override
+    public String toString() {
+        return this.description;
+    }
+}
@@ -0,0 +1,207 @@
+package simulation.engine;
+
+import simulation.PointStates;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Procedural landscape for new boards. Elevation is a few octaves of value noise over the whole board; fuel
+ * covers the map in stands following two slower noise fields, one for how wooded a place is (floor, litter,
+ * understory, trees) and one for whether its trees are coniferous or deciduous, with some per-cell jitter
+ * fraying the edges. A share of the map cells given by pointPercentage stays empty as scattered clearings.
+ * <p>
+ * Elevation and fuel are functions of the seed and the position of the cell only, so the board is generated
+ * in tiles on a ForkJoinPool in any order with the same result, and a board grown later continues the
+ * landscape around the part it kept. Cells are written straight into the grid, see {@link Grid#generateCell}.
+ */
+public final class TerrainGenerator {
+    private static final int TILE_SIZE = 256;
+
+    // elevation octaves, each half as wide and half as high as the one before; neighbours stay within a few
+    // metres of each other so the slope only tilts the spread a little
+    private static final int ELEVATION_OCTAVES = 4;
+    private static final int ELEVATION_WAVELENGTH = 256;
+    private static final double ELEVATION_AMPLITUDE = 64;
+    // stands are patches of a few dozen cells across
+    private static final int STAND_OCTAVES = 2;
+    private static final int STAND_WAVELENGTH = 48;
+    private static final double EDGE_JITTER = 0.2;
+    // how wooded a cell has to be for each fuel, the rest has trees
+    private static final double FLOOR_BELOW = 0.36;
+    private static final double LITTER_BELOW = 0.46;
+    private static final double UNDERSTORY_BELOW = 0.56;
+
+    // purposes of the draws, after those the grid makes itself
+    private static final int DRAW_ELEVATION = Grid.DRAW_FUEL;
+    private static final int DRAW_WOODLAND = DRAW_ELEVATION + ELEVATION_OCTAVES;
+    private static final int DRAW_CONIFER = DRAW_WOODLAND + STAND_OCTAVES;
+    private static final int DRAW_CLEARING = DRAW_CONIFER + STAND_OCTAVES;
+    private static final int DRAW_JITTER = DRAW_CLEARING + 1;
+
+    private final int mapX;
+    private final int mapY;
+    private final int mapWidth;
+    private final int mapHeight;
+    private final double clearingShare;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param clearingShare share of the map cells left empty, pointPercentage of the board configuration
+     */
+    public TerrainGenerator(int mapX, int mapY, int mapWidth, int mapHeight, double clearingShare, ForkJoinPool pool) {
+        this.mapX = mapX;
+        this.mapY = mapY;
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.clearingShare = clearingShare;
+        this.pool = pool;
+    }
+
+    /**
+     * Generates the cells of a grid fresh from its constructor outside of the first keptWidth columns and
+     * keptHeight rows, which are left as they are; 0 and 0 generate the whole board
+     */
+    public void generate(Grid grid, int keptWidth, int keptHeight) {
+        int tilesX = (grid.width() + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (grid.height() + TILE_SIZE - 1) / TILE_SIZE;
+        pool.invoke(new Tiles(grid, keptWidth, keptHeight, tilesY, 0, tilesX * tilesY));
+    }
+
+    private class Tiles extends RecursiveAction {
+        private final Grid grid;
+        private final int keptWidth;
+        private final int keptHeight;
+        private final int tilesY;
+        private final int from;
+        private final int to;
+
+        Tiles(Grid grid, int keptWidth, int keptHeight, int tilesY, int from, int to) {
+            this.grid = grid;
+            this.keptWidth = keptWidth;
+            this.keptHeight = keptHeight;
+            this.tilesY = tilesY;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Tiles(grid, keptWidth, keptHeight, tilesY, from, middle),
+                        new Tiles(grid, keptWidth, keptHeight, tilesY, middle, to));
+                return;
+            }
+            int fromX = from / tilesY * TILE_SIZE;
+            int fromY = from % tilesY * TILE_SIZE;
+            int toX = Math.min(fromX + TILE_SIZE, grid.width());
+            int toY = Math.min(fromY + TILE_SIZE, grid.height());
+            if (toX > keptWidth || toY > keptHeight) {
+                generateTile(grid, fromX, fromY, toX, toY, keptWidth, keptHeight);
+            }
+        }
+    }
+
+    private void generateTile(Grid grid, int fromX, int fromY, int toX, int toY, int keptWidth, int keptHeight) {
+        long seed = grid.seed();
+        int width = toX - fromX;
+        int height = toY - fromY;
+        double[] elevation = new double[width * height];
+        double[] woodland = new double[width * height];
+        double[] conifer = new double[width * height];
+        addOctaves(elevation, seed, DRAW_ELEVATION, ELEVATION_OCTAVES, ELEVATION_WAVELENGTH, ELEVATION_AMPLITUDE, fromX, fromY, width, height);
+        addOctaves(woodland, seed, DRAW_WOODLAND, STAND_OCTAVES, STAND_WAVELENGTH, 1.0, fromX, fromY, width, height);
+        addOctaves(conifer, seed, DRAW_CONIFER, STAND_OCTAVES, STAND_WAVELENGTH, 1.0, fromX, fromY, width, height);
+        // the stand octaves add up to at most 1.5
+        double standScale = 1.0 / 1.5;
+        int[] fuelCells = new int[PointStates.values().length];
+
+        for (int x = fromX; x < toX; x++) {
+            int column = grid.index(x, 0);
+            for (int y = fromY; y < toY; y++) {
+                if (x < keptWidth && y < keptHeight) {
+                    continue;
+                }
+                int i = (x - fromX) * height + y - fromY;
+                PointStates fuel = PointStates.NO_FIRE;
+                if (x >= mapX && x < mapX + mapWidth && y >= mapY && y < mapY + mapHeight
+                        && draw(seed, x, y, DRAW_CLEARING) >= clearingShare) {
+                    double jitter = (draw(seed, x, y, DRAW_JITTER) - 0.5) * EDGE_JITTER;
+                    fuel = fuel(woodland[i] * standScale + jitter, conifer[i] * standScale - jitter);
+                }
+                grid.generateCell(column + y, (int) Math.round(elevation[i]), fuel);
+                fuelCells[fuel.ordinal()]++;
+            }
+        }
+        for (PointStates fuel : PointStates.values()) {
+            if (fuel != PointStates.NO_FIRE && fuelCells[fuel.ordinal()] > 0) {
+                grid.countGenerated(fuel, fuelCells[fuel.ordinal()]);
+            }
+        }
+    }
+
+    private static PointStates fuel(double woodland, double conifer) {
+        if (woodland < FLOOR_BELOW) {
+            return PointStates.FLOOR;
+        }
+        if (woodland < LITTER_BELOW) {
+            return PointStates.LITTER;
+        }
+        if (woodland < UNDERSTORY_BELOW) {
+            return PointStates.UNDERSTORY;
+        }
+        return conifer < 0.5 ? PointStates.DECIDUOUS : PointStates.CONIFEROUS;
+    }
+
+    /**
+     * Adds octaves of value noise for the cells of a tile into field, at x * height + y. Lattice values are
+     * drawn once per tile and interpolated with a smoothstep, so every cell costs a few multiplications.
+     */
+    private static void addOctaves(double[] field, long seed, int purpose, int octaves, int wavelength, double amplitude,
+                                   int fromX, int fromY, int width, int height) {
+        for (int octave = 0; octave < octaves; octave++) {
+            int size = Math.max(wavelength >> octave, 1);
+            double scale = amplitude / (1 << octave);
+            int latticeX = fromX / size;
+            int latticeY = fromY / size;
+            int latticeWidth = (fromX + width - 1) / size - latticeX + 2;
+            int latticeHeight = (fromY + height - 1) / size - latticeY + 2;
+            double[] lattice = new double[latticeWidth * latticeHeight];
+            for (int lx = 0; lx < latticeWidth; lx++) {
+                for (int ly = 0; ly < latticeHeight; ly++) {
+                    lattice[lx * latticeHeight + ly] = draw(seed, latticeX + lx, latticeY + ly, purpose + octave);
+                }
+            }
+            double[] weightsY = new double[height];
+            int[] rowsY = new int[height];
+            for (int y = 0; y < height; y++) {
+                int absolute = fromY + y;
+                rowsY[y] = absolute / size - latticeY;
+                weightsY[y] = smoothstep((double) (absolute % size) / size);
+            }
+            for (int x = 0; x < width; x++) {
+                int absolute = fromX + x;
+                int lx = absolute / size - latticeX;
+                double wx = smoothstep((double) (absolute % size) / size);
+                int left = lx * latticeHeight;
+                int right = left + latticeHeight;
+                for (int y = 0; y < height; y++) {
+                    int ly = rowsY[y];
+                    double top = lattice[left + ly] + (lattice[right + ly] - lattice[left + ly]) * wx;
+                    double bottom = lattice[left + ly + 1] + (lattice[right + ly + 1] - lattice[left + ly + 1]) * wx;
+                    field[x * height + y] += scale * (top + (bottom - top) * weightsY[y]);
+                }
+            }
+        }
+    }
+
+    private static double smoothstep(double t) {
+        return t * t * (3 - 2 * t);
+    }
+
+    // uniform in [0, 1) for a position of the board, the same whatever the size of the board
+    private static double draw(long seed, int x, int y, int purpose) {
+        return CounterRandom.nextDouble(seed, 0, (long) x << 24 | y, purpose);
+    }
+}
@@ -0,0 +1,188 @@
+package simulation.engine;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import static simulation.engine.Grid.FIRE_GROWTH_RATE;
+import static simulation.engine.Grid.STATE_DECAY;
+
+/**
+ * All levels of a cell in as few vectors as the widest double species takes, 2 with AVX-512 and 3 with
+ * AVX2, and runs of cells in full vectors over their contiguous levels with a masked tail. Floats are
+ * widened to doubles and every operation is done in the same order as ScalarLevelKernel, so the results are
+ * the same to the bit. Direct buffers have no array to load from: runs of cells are copied into arrays of
+ * the calling thread first, single cells go through the scalar kernel.
+ */
+final class VectorLevelKernel implements LevelKernel {
+    private static final int LEVELS = Grid.LEVELS;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // floats with as many lanes as DOUBLES, so converting between them keeps every lane
+    private static final VectorSpecies<Float> FLOATS = VectorSpecies.of(float.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+    // compare needs a bit per float of a chunk in whole words, so a vector never straddles two of them
+    private static final VectorSpecies<Float> COMPARED = FloatVector.SPECIES_PREFERRED;
+
+    private final LevelKernel scalar = new ScalarLevelKernel();
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    @Override
+    public void burn(FloatBuffer states, FloatBuffer temperatures, FloatBuffer next, int base, int fire,
+                     double actualBurnTemp, double airTemperature) {
+        if (!temperatures.hasArray() || !next.hasArray() || (fire != 0 && !states.hasArray())) {
+            scalar.burn(states, temperatures, next, base, fire, actualBurnTemp, airTemperature);
+            return;
+        }
+        float[] t = temperatures.array();
+        float[] n = next.array();
+        int tOffset = temperatures.arrayOffset() + base;
+        int nOffset = next.arrayOffset() + base;
+
+        for (int i = 0; i < LEVELS; i += DOUBLES.length()) {
+            VectorMask<Float> inRange = FLOATS.indexInRange(i, LEVELS);
+            DoubleVector temperature = widen(FloatVector.fromArray(FLOATS, t, tOffset + i, inRange));
+            DoubleVector result = temperature.mul(1 - FIRE_GROWTH_RATE).max(airTemperature);
+
+            VectorMask<Double> burning = VectorMask.fromLong(DOUBLES, fire >>> i);
+            if (burning.anyTrue()) {
+                float[] s = states.array();
+                int sOffset = states.arrayOffset() + base;
+                DoubleVector state = widen(FloatVector.fromArray(FLOATS, s, sOffset + i, inRange));
+                DoubleVector nextState = state.mul(DoubleVector.broadcast(DOUBLES, 1).sub(temperature.mul(STATE_DECAY).div(actualBurnTemp)));
+                narrow(nextState).intoArray(s, sOffset + i, burning.cast(FLOATS).and(inRange));
+                result = result.blend(temperature.mul(1 + FIRE_GROWTH_RATE).mul(nextState), burning);
+            }
+            narrow(result).intoArray(n, nOffset + i, inRange);
+        }
+    }
+
+    @Override
+    public int compare(FloatBuffer temperatures, FloatBuffer next, int base, double actualBurnTemp) {
+        if (!temperatures.hasArray() || !next.hasArray()) {
+            return scalar.compare(temperatures, next, base, actualBurnTemp);
+        }
+        float[] t = temperatures.array();
+        float[] n = next.array();
+        int tOffset = temperatures.arrayOffset() + base;
+        int nOffset = next.arrayOffset() + base;
+
+        int fire = 0;
+        boolean moved = false;
+        for (int i = 0; i < LEVELS; i += DOUBLES.length()) {
+            VectorMask<Float> inRange = FLOATS.indexInRange(i, LEVELS);
+            FloatVector temperature = FloatVector.fromArray(FLOATS, t, tOffset + i, inRange);
+            FloatVector nextTemperature = FloatVector.fromArray(FLOATS, n, nOffset + i, inRange);
+            moved |= temperature.compare(VectorOperators.NE, nextTemperature, inRange).anyTrue();
+            VectorMask<Double> burning = widen(nextTemperature).compare(VectorOperators.GE, actualBurnTemp).and(inRange.cast(DOUBLES));
+            fire |= (int) burning.toLong() << i;
+        }
+        return moved ? fire | MOVED : fire;
+    }
+
+    @Override
+    public void cool(FloatBuffer temperatures, FloatBuffer next, int base, int cells, double airTemperature) {
+        int floats = cells * LEVELS;
+        Scratch own = scratch.get();
+        float[] t = temperatures.hasArray() ? temperatures.array() : own.load(own.temperatures, temperatures, base, floats);
+        float[] n = next.hasArray() ? next.array() : own.next;
+        int tOffset = temperatures.hasArray() ? temperatures.arrayOffset() + base : 0;
+        int nOffset = next.hasArray() ? next.arrayOffset() + base : 0;
+
+        int bound = FLOATS.loopBound(floats);
+        int i = 0;
+        for (; i < bound; i += FLOATS.length()) {
+            DoubleVector temperature = widen(FloatVector.fromArray(FLOATS, t, tOffset + i));
+            narrow(temperature.mul(1 - FIRE_GROWTH_RATE).max(airTemperature)).intoArray(n, nOffset + i);
+        }
+        if (i < floats) {
+            VectorMask<Float> inRange = FLOATS.indexInRange(i, floats);
+            DoubleVector temperature = widen(FloatVector.fromArray(FLOATS, t, tOffset + i, inRange));
+            narrow(temperature.mul(1 - FIRE_GROWTH_RATE).max(airTemperature)).intoArray(n, nOffset + i, inRange);
+        }
+        if (!next.hasArray()) {
+            next.put(base, n, 0, floats);
+        }
+    }
+
+    @Override
+    public boolean compare(FloatBuffer temperatures, FloatBuffer next, int base, int cells, float[] burnTemps, int[] compared) {
+        int floats = cells * LEVELS;
+        Scratch own = scratch.get();
+        float[] t = temperatures.hasArray() ? temperatures.array() : own.load(own.temperatures, temperatures, base, floats);
+        float[] n = next.hasArray() ? next.array() : own.load(own.next, next, base, floats);
+        int tOffset = temperatures.hasArray() ? temperatures.arrayOffset() + base : 0;
+        int nOffset = next.hasArray() ? next.arrayOffset() + base : 0;
+
+        float[] thresholds = own.thresholds;
+        for (int c = 0; c < cells; c++) {
+            Arrays.fill(thresholds, c * LEVELS, (c + 1) * LEVELS, burnTemps[c]);
+        }
+        long[] movedBits = own.moved;
+        long[] fireBits = own.fire;
+        Arrays.fill(movedBits, 0, (floats >>> 6) + 1, 0);
+        Arrays.fill(fireBits, 0, (floats >>> 6) + 1, 0);
+
+        int bound = COMPARED.loopBound(floats);
+        int i = 0;
+        for (; i < bound; i += COMPARED.length()) {
+            FloatVector temperature = FloatVector.fromArray(COMPARED, t, tOffset + i);
+            FloatVector nextTemperature = FloatVector.fromArray(COMPARED, n, nOffset + i);
+            movedBits[i >>> 6] |= temperature.compare(VectorOperators.NE, nextTemperature).toLong() << (i & 63);
+            fireBits[i >>> 6] |= nextTemperature.compare(VectorOperators.GE, FloatVector.fromArray(COMPARED, thresholds, i)).toLong() << (i & 63);
+        }
+        if (i < floats) {
+            VectorMask<Float> inRange = COMPARED.indexInRange(i, floats);
+            FloatVector temperature = FloatVector.fromArray(COMPARED, t, tOffset + i, inRange);
+            FloatVector nextTemperature = FloatVector.fromArray(COMPARED, n, nOffset + i, inRange);
+            movedBits[i >>> 6] |= temperature.compare(VectorOperators.NE, nextTemperature, inRange).toLong() << (i & 63);
+            FloatVector threshold = FloatVector.fromArray(COMPARED, thresholds, i, inRange);
+            fireBits[i >>> 6] |= nextTemperature.compare(VectorOperators.GE, threshold, inRange).toLong() << (i & 63);
+        }
+
+        boolean moved = false;
+        for (int c = 0; c < cells; c++) {
+            int fire = levels(fireBits, c * LEVELS);
+            boolean cellMoved = levels(movedBits, c * LEVELS) != 0;
+            compared[c] = cellMoved ? fire | MOVED : fire;
+            moved |= cellMoved;
+        }
+        return moved;
+    }
+
+    // the LEVELS bits starting at bit position of words, which may continue in the next word
+    private static int levels(long[] words, int position) {
+        long bits = words[position >>> 6] >>> (position & 63);
+        if ((position & 63) > 64 - LEVELS) {
+            bits |= words[(position >>> 6) + 1] << (64 - (position & 63));
+        }
+        return (int) bits & ((1 << LEVELS) - 1);
+    }
+
+    private static DoubleVector widen(FloatVector vector) {
+        return (DoubleVector) vector.convertShape(VectorOperators.F2D, DOUBLES, 0);
+    }
+
+    private static FloatVector narrow(DoubleVector vector) {
+        return (FloatVector) vector.convertShape(VectorOperators.D2F, FLOATS, 0);
+    }
+
+    // arrays for a chunk of one thread
+    private static final class Scratch {
+        final float[] temperatures = new float[LevelChunks.CHUNK_FLOATS];
+        final float[] next = new float[LevelChunks.CHUNK_FLOATS];
+        final float[] thresholds = new float[LevelChunks.CHUNK_FLOATS];
+        final long[] moved = new long[(LevelChunks.CHUNK_FLOATS >>> 6) + 1];
+        final long[] fire = new long[(LevelChunks.CHUNK_FLOATS >>> 6) + 1];
+
+        float[] load(float[] into, FloatBuffer from, int base, int floats) {
+            from.get(base, into, 0, floats);
+            return into;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package simulation.engine;
+
+import simulation.PointStates;
+
+/**
+ * What the board shows of a cell packed into a byte: fuel type, whether it is burnt and the colour
+ * bucket of its fire, following the order the board checks the levels in.
+ */
+public final class VisibleState {
+    public static final int FIRE_NONE = 0;
+    // below 1000 degrees
+    public static final int FIRE_RED = 1;
+    // below 1200 degrees
+    public static final int FIRE_ORANGE = 2;
+    public static final int FIRE_GOLD = 3;
+
+    // number of distinct codes, codes are in [0, CODES)
+    public static final int CODES = 1 << 6;
+
+    private static final int TYPE_MASK = 0x7;
+    private static final int BURNT_BIT = 0x8;
+    private static final int FIRE_SHIFT = 4;
+    private static final PointStates[] TYPES = PointStates.values();
+
+    private VisibleState() {
+    }
+
+    static byte encode(int typeOrdinal, boolean burnt, int fireBucket) {
+        return (byte) (typeOrdinal | (burnt ? BURNT_BIT : 0) | fireBucket << FIRE_SHIFT);
+    }
+
+    // codes that no cell can have decode as empty
+    public static PointStates type(byte code) {
+        int ordinal = code & TYPE_MASK;
+        return ordinal < PointStates.FIRE.ordinal() ? TYPES[ordinal] : PointStates.NO_FIRE;
+    }
+
+    public static boolean isBurnt(byte code) {
+        return (code & BURNT_BIT) != 0;
+    }
+
+    public static int fireBucket(byte code) {
+        return (code >> FIRE_SHIFT) & 0x3;
+    }
+}
@@ -0,0 +1,143 @@
+package simulation.instrumentation;
+
+import simulation.records.PhaseTiming;
+import simulation.records.TickSample;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Phase timers and per tick counters telling where the time of a tick goes. Everything is off unless
+ * -Dsimulation.instrumentation=true is given or setEnabled is called. While off, a timed phase costs a single
+ * volatile read, so the calls can stay in the stepping code.
+ * <p>
+ * While on, every phase and every tick is also committed as a JDK Flight Recorder event, which shows up when
+ * a recording is running, e.g. with -XX:StartFlightRecording. Phases are timed on the simulation thread and
+ * on the event dispatch thread, so the timers may be updated by several threads at once.
+ */
+public final class Instrumentation {
+    private static final Timer[] TIMERS = new Timer[Phase.values().length];
+
+    private static volatile boolean enabled = Boolean.getBoolean("simulation.instrumentation");
+    private static volatile TickSample lastTick;
+
+    static {
+        for (int i = 0; i < TIMERS.length; i++) {
+            TIMERS[i] = new Timer();
+        }
+    }
+
+    private Instrumentation() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Instrumentation.enabled = enabled;
+    }
+
+    /**
+     * Start of a timed phase, to be passed to end, 0 when instrumentation is off
+     */
+    public static long begin() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void end(Phase phase, long begin) {
+        if (begin == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - begin;
+        TIMERS[phase.ordinal()].add(nanos);
+
+        PhaseEvent event = new PhaseEvent();
+        if (event.shouldCommit()) {
+            event.phase = phase.toString();
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, -1 when the JVM does not count them
+     */
+    public static long allocatedBytes() {
+        return Allocations.THREADS != null ? Allocations.THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Ends a tick started with begin, allocatedAtBegin as returned by allocatedBytes when it started
+     */
+    public static void endTick(long begin, long allocatedAtBegin, long tick, String mode, int activeCells) {
+        if (begin == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - begin;
+        long allocated = allocatedAtBegin < 0 ? -1 : allocatedBytes() - allocatedAtBegin;
+        lastTick = new TickSample(tick, nanos, activeCells, allocated);
+
+        TickEvent event = new TickEvent();
+        if (event.shouldCommit()) {
+            event.tick = tick;
+            event.mode = mode;
+            event.activeCells = activeCells;
+            event.nanos = nanos;
+            event.allocated = allocated;
+            event.commit();
+        }
+    }
+
+    public static PhaseTiming timing(Phase phase) {
+        return TIMERS[phase.ordinal()].snapshot();
+    }
+
+    // null until a tick was instrumented
+    public static TickSample lastTick() {
+        return lastTick;
+    }
+
+    public static void reset() {
+        for (Timer timer : TIMERS) {
+            timer.reset();
+        }
+        lastTick = null;
+    }
+
+    // loaded on the first instrumented tick, so the management beans are left alone while off
+    private static final class Allocations {
+        static final com.sun.management.ThreadMXBean THREADS = threads();
+
+        private static com.sun.management.ThreadMXBean threads() {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+            return null;
+        }
+    }
+
+    private static final class Timer {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private volatile long last;
+
+        void add(long nanos) {
+            calls.increment();
+            total.add(nanos);
+            last = nanos;
+        }
+
+        PhaseTiming snapshot() {
+            return new PhaseTiming(calls.sum(), total.sum(), last);
+        }
+
+        void reset() {
+            calls.reset();
+            total.reset();
+            last = 0;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package simulation.instrumentation;
+
+/**
+ * Parts of a tick, and of showing it, that {@link Instrumentation} times separately
+ */
+public enum Phase {
+    ACTIVATE("Activate"),
+    CALCULATE("Calculate"),
+    UPDATE("Update"),
+    SETTLE("Settle"),
+    STATISTICS("Statistics"),
+    CAPTURE("Frame capture"),
+    RENDER("Render"),
+    PAINT("Paint"),
+    STATS_PANELS("Stats panels");
+
+    private final String description;
+
+    Phase(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String toString() {
+        return this.description;
+    }
+}
@@ -0,0 +1,22 @@
+package simulation.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("simulation.Phase")
+@Label("Simulation Phase")
+@Category({"Forest Fire Simulation"})
+@Description("Time spent in one phase of a tick or of showing it")
+@StackTrace(false)
+class PhaseEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long nanos;
+}
@@ -0,0 +1,34 @@
+package simulation.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("simulation.Tick")
+@Label("Simulation Tick")
+@Category({"Forest Fire Simulation"})
+@Description("A whole tick of the simulation with the cells it visited")
+@StackTrace(false)
+class TickEvent extends jdk.jfr.Event {
+    @Label("Tick")
+    long tick;
+
+    @Label("Stepping Mode")
+    String mode;
+
+    @Label("Active Cells")
+    int activeCells;
+
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long nanos;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the stepping thread, -1 when the JVM does not count them")
+    @DataAmount(DataAmount.BYTES)
+    long allocated;
+}
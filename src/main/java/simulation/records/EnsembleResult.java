@@ -0,0 +1,19 @@
+package simulation.records;
+
+import simulation.engine.Distribution;
+
+import java.util.Map;
+
+/**
+ * Per-cell rasters are indexed x * height + y, without the halo of the grid. Mean arrival is NaN for cells that never burnt.
+ */
+public record EnsembleResult(
+        int replicas,
+        int ticks,
+        int width,
+        int height,
+        float[] burnProbability,
+        float[] meanArrivalTick,
+        Map<String, Distribution> statistics
+) {
+}
@@ -0,0 +1,12 @@
+package simulation.records;
+
+/**
+ * Header of a binary map file. The config hash identifies the simulation parameters the map was saved with.
+ */
+public record MapHeader(
+        int version,
+        int width,
+        int height,
+        long configHash
+) {
+}
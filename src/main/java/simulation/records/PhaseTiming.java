@@ -0,0 +1,10 @@
+package simulation.records;
+
+/**
+ * Times a phase was run and the time it took, since instrumentation was last reset
+ */
+public record PhaseTiming(long calls, long totalNanos, long lastNanos) {
+    public double meanNanos() {
+        return calls > 0 ? (double) totalNanos / calls : 0;
+    }
+}
@@ -1,7 +1,8 @@
 package simulation.records;
 
-import java.util.List;
-
+/**
+ * The levels are indexed like the levels of the grid, the arrays belong to the record and are not changed
+ */
 public record PointStatistics(
         int pointX,
         int pointY,
@@ -13,10 +14,10 @@ public record PointStatistics(
         boolean deciduous,
         double height,
         boolean fireSource,
-        List<Double> state,
-        List<Double> temperature,
+        float[] state,
+        float[] temperature,
         double humidity,
         String currentState,
-        List<Boolean> onFire
+        boolean[] onFire
 ) {
-}
\ No newline at end of file
+}
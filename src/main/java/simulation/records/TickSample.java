@@ -0,0 +1,7 @@
+package simulation.records;
+
+/**
+ * The last instrumented tick, allocated is -1 when the JVM does not count allocations per thread
+ */
+public record TickSample(long tick, long nanos, int activeCells, long allocated) {
+}
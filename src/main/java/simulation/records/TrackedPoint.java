@@ -1,6 +1,4 @@
 package simulation.records;
 
-import simulation.Point;
-
-public record TrackedPoint(Point point, int pointX, int pointY) {
+public record TrackedPoint(int pointX, int pointY) {
 }
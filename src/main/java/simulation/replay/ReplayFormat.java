@@ -0,0 +1,20 @@
+package simulation.replay;
+
+/**
+ * Layout of a replay file (big endian): magic, version, width, height, keyframe interval, then one frame per
+ * recorded tick. A frame is its kind, the grid tick, the raw and the deflated payload length and the deflated
+ * payload. Keyframe payloads hold the visible state of every cell, delta payloads the number of changed cells
+ * followed by the gap to the previous changed cell (varint) and the new visible state of each of them.
+ */
+final class ReplayFormat {
+    static final int MAGIC = 0x50524646; // "FFRP"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 5 * Integer.BYTES;
+    static final int FRAME_HEADER_BYTES = 1 + Long.BYTES + 2 * Integer.BYTES;
+
+    static final byte KEYFRAME = 0;
+    static final byte DELTA = 1;
+
+    private ReplayFormat() {
+    }
+}
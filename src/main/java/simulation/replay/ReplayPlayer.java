@@ -0,0 +1,215 @@
+package simulation.replay;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Plays a replay back frame by frame. Seeking loads the closest keyframe at or before the target and applies
+ * the deltas after it, so its cost is bounded by the keyframe interval; stepping forward applies a single delta.
+ */
+public class ReplayPlayer implements Closeable {
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+
+    // per frame: file offset, grid tick and the frame of the keyframe it builds on
+    private long[] offsets = new long[256];
+    private long[] ticks = new long[256];
+    private int[] keyframes = new int[256];
+    private int frames;
+
+    private final byte[] visible;
+    private int current = -1;
+    private final Inflater inflater = new Inflater();
+    private final ByteBuffer frameHeader = ByteBuffer.allocate(ReplayFormat.FRAME_HEADER_BYTES);
+    private ByteBuffer deflated = ByteBuffer.allocate(1 << 16);
+    private byte[] payload = new byte[1 << 16];
+
+    private ReplayPlayer(FileChannel channel, int width, int height) {
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        this.visible = new byte[width * height];
+    }
+
+    /**
+     * Opens a replay and indexes its frames, a replay cut short by a crash is read up to its last complete frame
+     */
+    public static ReplayPlayer open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(ReplayFormat.HEADER_BYTES);
+            readFully(channel, header, 0);
+            if (header.getInt() != ReplayFormat.MAGIC) {
+                throw new IOException("Not a replay, bad magic number");
+            }
+            int version = header.getInt();
+            if (version > ReplayFormat.VERSION) {
+                throw new IOException("Unsupported replay version " + version);
+            }
+            int width = header.getInt();
+            int height = header.getInt();
+            header.getInt();
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Invalid replay dimensions " + width + "x" + height);
+            }
+            ReplayPlayer player = new ReplayPlayer(channel, width, height);
+            player.index();
+            return player;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void index() throws IOException {
+        long offset = ReplayFormat.HEADER_BYTES;
+        long size = channel.size();
+        int keyframe = -1;
+        while (offset + ReplayFormat.FRAME_HEADER_BYTES <= size) {
+            readFully(channel, frameHeader.clear(), offset);
+            byte kind = frameHeader.get();
+            long tick = frameHeader.getLong();
+            frameHeader.getInt();
+            int deflatedLength = frameHeader.getInt();
+            long end = offset + ReplayFormat.FRAME_HEADER_BYTES + deflatedLength;
+            if (deflatedLength < 0 || end > size) {
+                break;
+            }
+            if (kind == ReplayFormat.KEYFRAME) {
+                keyframe = frames;
+            } else if (keyframe < 0) {
+                throw new IOException("Replay does not start with a keyframe");
+            }
+
+            if (frames == offsets.length) {
+                offsets = Arrays.copyOf(offsets, frames * 2);
+                ticks = Arrays.copyOf(ticks, frames * 2);
+                keyframes = Arrays.copyOf(keyframes, frames * 2);
+            }
+            offsets[frames] = offset;
+            ticks[frames] = tick;
+            keyframes[frames] = keyframe;
+            frames++;
+            offset = end;
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int frames() {
+        return frames;
+    }
+
+    public int currentFrame() {
+        return current;
+    }
+
+    // grid tick the frame was recorded at
+    public long tick(int frame) {
+        return ticks[frame];
+    }
+
+    /**
+     * Moves to the frame and returns the visible state of every cell, indexed x * height + y.
+     * The array is reused by later seeks.
+     */
+    public byte[] seek(int frame) throws IOException {
+        if (frame < 0 || frame >= frames) {
+            throw new IndexOutOfBoundsException("Frame " + frame + " of " + frames);
+        }
+        int from = current;
+        if (current < keyframes[frame] || current > frame) {
+            from = keyframes[frame];
+            apply(from);
+        }
+        for (int f = from + 1; f <= frame; f++) {
+            apply(f);
+        }
+        current = frame;
+        return visible;
+    }
+
+    private void apply(int frame) throws IOException {
+        readFully(channel, frameHeader.clear(), offsets[frame]);
+        byte kind = frameHeader.get();
+        frameHeader.getLong();
+        int payloadLength = frameHeader.getInt();
+        int deflatedLength = frameHeader.getInt();
+
+        if (deflated.capacity() < deflatedLength) {
+            deflated = ByteBuffer.allocate(deflatedLength);
+        }
+        readFully(channel, deflated.clear().limit(deflatedLength), offsets[frame] + ReplayFormat.FRAME_HEADER_BYTES);
+        if (payload.length < payloadLength) {
+            payload = new byte[payloadLength];
+        }
+        inflater.reset();
+        inflater.setInput(deflated.array(), 0, deflatedLength);
+        try {
+            if (inflater.inflate(payload, 0, payloadLength) != payloadLength) {
+                throw new IOException("Frame " + frame + " is corrupt");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Frame " + frame + " is corrupt", e);
+        }
+
+        if (kind == ReplayFormat.KEYFRAME) {
+            if (payloadLength != visible.length) {
+                throw new IOException("Keyframe " + frame + " does not cover the grid");
+            }
+            System.arraycopy(payload, 0, visible, 0, visible.length);
+            return;
+        }
+
+        int changed = (payload[0] & 0xFF) << 24 | (payload[1] & 0xFF) << 16 | (payload[2] & 0xFF) << 8 | payload[3] & 0xFF;
+        int position = Integer.BYTES;
+        int cell = -1;
+        for (int i = 0; i < changed; i++) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = payload[position++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            cell += gap + 1;
+            if (cell >= visible.length) {
+                throw new IOException("Frame " + frame + " is corrupt");
+            }
+            visible[cell] = payload[position++];
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            position += n;
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+}
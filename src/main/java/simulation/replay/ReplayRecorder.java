@@ -0,0 +1,169 @@
+package simulation.replay;
+
+import simulation.engine.Grid;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Records what the board shows after every tick. Only cells whose visible state changed since the previous
+ * frame are written, with a full keyframe every keyframe interval frames and whenever the grid is replaced.
+ * Deltas only look at the change blocks of the grid that changed since the previous frame.
+ */
+public class ReplayRecorder implements Closeable {
+    public static final String EXTENSION = ".ffrp";
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 250;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final int keyframeInterval;
+    private final byte[] visible;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] deflated = new byte[1 << 16];
+    private byte[] payload = new byte[1 << 16];
+    private int payloadLength;
+
+    private Grid recordedGrid;
+    private int generation;
+    private int frames;
+
+    public ReplayRecorder(Path path, int width, int height, int keyframeInterval) throws IOException {
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("Keyframe interval must be positive: " + keyframeInterval);
+        }
+        this.width = width;
+        this.height = height;
+        this.keyframeInterval = keyframeInterval;
+        this.visible = new byte[width * height];
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+
+        out.writeInt(ReplayFormat.MAGIC);
+        out.writeInt(ReplayFormat.VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(keyframeInterval);
+    }
+
+    public int frames() {
+        return frames;
+    }
+
+    /**
+     * Appends a frame with the current state of the grid, which must have the dimensions of the recording
+     */
+    public void record(Grid grid) throws IOException {
+        if (grid.width() != width || grid.height() != height) {
+            throw new IllegalArgumentException("Grid is " + grid.width() + "x" + grid.height() + ", the replay " + width + "x" + height);
+        }
+        payloadLength = 0;
+        byte kind;
+        if (grid != recordedGrid || frames % keyframeInterval == 0) {
+            kind = ReplayFormat.KEYFRAME;
+            ensureCapacity(visible.length);
+            for (int x = 0; x < width; x++) {
+                int column = grid.index(x, 0);
+                for (int y = 0; y < height; y++) {
+                    visible[x * height + y] = grid.visibleState(column + y);
+                }
+            }
+            System.arraycopy(visible, 0, payload, 0, visible.length);
+            payloadLength = visible.length;
+        } else {
+            kind = ReplayFormat.DELTA;
+            writeDelta(grid);
+        }
+        writeFrame(kind, grid.tick());
+
+        recordedGrid = grid;
+        generation = grid.nextGeneration();
+        frames++;
+    }
+
+    private void writeDelta(Grid grid) {
+        // the count is patched in once known
+        payloadLength = Integer.BYTES;
+        int changed = 0;
+        int previous = -1;
+        // cells are numbered x * height + y in the replay, without the halo of the grid
+        for (int x = 0; x < width; x++) {
+            int column = grid.index(x, 0);
+            int y = 0;
+            while (y < height) {
+                // change blocks without changes are skipped whole
+                int first = column + y;
+                int end = Math.min(height, y + (((first >>> Grid.CHANGE_BLOCK_SHIFT) + 1) << Grid.CHANGE_BLOCK_SHIFT) - first);
+                if (!grid.blockChangedSince(first, generation)) {
+                    y = end;
+                    continue;
+                }
+                for (; y < end; y++) {
+                    if (!grid.changedSince(column + y, generation)) {
+                        continue;
+                    }
+                    byte code = grid.visibleState(column + y);
+                    int cell = x * height + y;
+                    if (code == visible[cell]) {
+                        continue;
+                    }
+                    visible[cell] = code;
+                    ensureCapacity(payloadLength + 6);
+                    putVarint(cell - previous - 1);
+                    payload[payloadLength++] = code;
+                    previous = cell;
+                    changed++;
+                }
+            }
+        }
+        payload[0] = (byte) (changed >>> 24);
+        payload[1] = (byte) (changed >>> 16);
+        payload[2] = (byte) (changed >>> 8);
+        payload[3] = (byte) changed;
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            payload[payloadLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        payload[payloadLength++] = (byte) value;
+    }
+
+    private void ensureCapacity(int length) {
+        if (payload.length < length) {
+            payload = Arrays.copyOf(payload, Math.max(length, payload.length * 2));
+        }
+    }
+
+    private void writeFrame(byte kind, long tick) throws IOException {
+        deflater.reset();
+        deflater.setInput(payload, 0, payloadLength);
+        deflater.finish();
+        // the deflated length goes in front of the data, so the whole frame is deflated first
+        int deflatedLength = 0;
+        while (!deflater.finished()) {
+            if (deflatedLength == deflated.length) {
+                deflated = Arrays.copyOf(deflated, deflated.length * 2);
+            }
+            deflatedLength += deflater.deflate(deflated, deflatedLength, deflated.length - deflatedLength);
+        }
+
+        out.writeByte(kind);
+        out.writeLong(tick);
+        out.writeInt(payloadLength);
+        out.writeInt(deflatedLength);
+        out.write(deflated, 0, deflatedLength);
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        out.close();
+    }
+}
@@ -0,0 +1,71 @@
+package simulation;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import simulation.engine.Grid;
+import simulation.engine.SimulationEngine;
+import simulation.engine.SteppingMode;
+import simulation.engine.TestBoards;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardFrameTest {
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 200;
+    private static final int FIRE_MARGIN = 2;
+
+    @ParameterizedTest
+    @EnumSource(SteppingMode.class)
+    void ticksOnlyChangeTheBlocksAroundTheFire(SteppingMode mode) {
+        SimulationEngine engine = TestBoards.engine(WIDTH, HEIGHT, mode);
+        engine.edit(WIDTH / 2, HEIGHT / 2, PointStates.FIRE);
+        // cells cool from their initial temperature to the air temperature in the first ticks, empty cells
+        // through the wind over a few dozen
+        engine.run(100);
+        BoardFrame frame = new BoardFrame();
+        frame.capture(engine.getGrid(), 0, -1, -1);
+        frame.clearDirty();
+
+        Grid grid = engine.getGrid();
+        int generation = grid.nextGeneration();
+        engine.step();
+        frame.capture(grid, 1, -1, -1);
+
+        // heat only reaches the neighbours of burning and cooling cells in a tick
+        int minX = WIDTH;
+        int minY = HEIGHT;
+        int maxX = -1;
+        int maxY = -1;
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                int cell = grid.index(x, y);
+                if (grid.getType(cell) != PointStates.NO_FIRE && (grid.isBurning(cell) || grid.isBurnt(cell))) {
+                    minX = Math.min(minX, x - FIRE_MARGIN);
+                    minY = Math.min(minY, y - FIRE_MARGIN);
+                    maxX = Math.max(maxX, x + FIRE_MARGIN);
+                    maxY = Math.max(maxY, y + FIRE_MARGIN);
+                }
+            }
+        }
+        assertTrue(maxX >= 0, "the fire did not catch");
+        BitSet fireBlocks = new BitSet();
+        for (int x = Math.max(minX, 0); x <= Math.min(maxX, WIDTH - 1); x++) {
+            for (int y = Math.max(minY, 0); y <= Math.min(maxY, HEIGHT - 1); y++) {
+                fireBlocks.set(grid.index(x, y) >>> Grid.CHANGE_BLOCK_SHIFT);
+            }
+        }
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                int cell = grid.index(x, y);
+                assertTrue(!grid.blockChangedSince(cell, generation) || fireBlocks.get(cell >>> Grid.CHANGE_BLOCK_SHIFT),
+                        "block of " + x + "," + y + " changed away from the fire");
+            }
+        }
+        assertTrue(frame.isDirty(), "the fire did not show");
+        assertTrue(frame.dirtyMinX() >= minX && frame.dirtyMaxX() <= maxX
+                        && frame.dirtyMinY() >= minY && frame.dirtyMaxY() <= maxY,
+                "dirty area reaches away from the fire");
+    }
+}
@@ -0,0 +1,84 @@
+package simulation.adapters;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import simulation.engine.Grid;
+import simulation.engine.SimulationEngine;
+import simulation.engine.SteppingMode;
+import simulation.engine.TestBoards;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static simulation.engine.TestBoards.HEIGHT;
+import static simulation.engine.TestBoards.WIDTH;
+
+class MapFormatsTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void bothFormatsLoadTheSavedMap() throws IOException {
+        Grid saved = TestBoards.engine(SteppingMode.FULL_SCAN).getGrid();
+        StringWriter json = new StringWriter();
+        MapShapeAdapter.writeMap(saved, json, false);
+        Path binary = directory.resolve("map" + BinaryMapAdapter.EXTENSION);
+        BinaryMapAdapter.writeMap(saved, binary);
+
+        // another seed, so heights drawn on load instead of kept would differ
+        SimulationEngine fromJson = target();
+        MapShapeAdapter.readMap(new StringReader(json.toString()), fromJson::updatePoint);
+        SimulationEngine fromBinary = target();
+        BinaryMapAdapter.readMap(binary, fromBinary.getGrid());
+
+        Grid loaded = fromJson.getGrid();
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                int cell = saved.index(x, y);
+                assertEquals(saved.getType(cell), loaded.getType(cell), "type at " + x + "," + y);
+                assertEquals(saved.getElevation(cell), loaded.getElevation(cell), "elevation at " + x + "," + y);
+                assertEquals((float) saved.getHeight(cell), loaded.getHeight(cell), "height at " + x + "," + y);
+            }
+        }
+        assertEquals(TestBoards.digest(fromJson.getGrid()), TestBoards.digest(fromBinary.getGrid()));
+    }
+
+    @Test
+    void mapsWithoutVersionKeepTheDrawnHeights() throws IOException {
+        Grid saved = TestBoards.engine(SteppingMode.FULL_SCAN).getGrid();
+        // a bare array of points with the elevation under "height", as maps were saved before the version
+        StringBuilder json = new StringBuilder("[");
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                int cell = saved.index(x, y);
+                json.append(json.length() > 1 ? "," : "")
+                        .append("{\"x\":").append(x).append(",\"y\":").append(y)
+                        .append(",\"currentState\":\"").append(saved.getType(cell))
+                        .append("\",\"elevation\":").append(saved.getElevation(cell))
+                        .append(",\"height\":").append(saved.getElevation(cell)).append('}');
+            }
+        }
+        json.append(']');
+
+        SimulationEngine loaded = target();
+        assertEquals(WIDTH * HEIGHT, MapShapeAdapter.readMap(new StringReader(json.toString()), loaded::updatePoint));
+        SimulationEngine drawn = target();
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                int cell = saved.index(x, y);
+                drawn.updatePoint(x, y, saved.getElevation(cell), Float.NaN, saved.getType(cell));
+                assertEquals(saved.getType(cell), loaded.getGrid().getType(cell), "type at " + x + "," + y);
+                assertEquals(drawn.getGrid().getHeight(cell), loaded.getGrid().getHeight(cell), "height at " + x + "," + y);
+            }
+        }
+    }
+
+    private static SimulationEngine target() {
+        SimulationEngine engine = new SimulationEngine(WIDTH, HEIGHT, TestBoards.CONFIG, TestBoards.SEED + 1);
+        engine.clear();
+        return engine;
+    }
+}
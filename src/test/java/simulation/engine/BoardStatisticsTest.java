@@ -0,0 +1,73 @@
+package simulation.engine;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import simulation.PointStates;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static simulation.engine.TestBoards.HEIGHT;
+import static simulation.engine.TestBoards.WIDTH;
+
+class BoardStatisticsTest {
+    private static final int TICKS = 40;
+
+    @ParameterizedTest
+    @EnumSource(SteppingMode.class)
+    void countersMatchARecountAfterEveryChange(SteppingMode mode) throws IOException {
+        SimulationEngine engine = TestBoards.engine(mode);
+        assertCounted(engine, "generated");
+        engine.edit(WIDTH / 2, HEIGHT / 2, PointStates.FIRE);
+        engine.edit(WIDTH / 4, HEIGHT / 3, PointStates.FIRE);
+        engine.edit(WIDTH / 4 + 1, HEIGHT / 3, PointStates.CONIFEROUS);
+        assertCounted(engine, "edited");
+        run(engine, "first run");
+        assertTrue(engine.toBoardStatistics().burntFields() > 0, "the fire did not spread");
+
+        // edits in the middle of the fire
+        for (int x = WIDTH / 2 - 3; x <= WIDTH / 2 + 3; x++) {
+            engine.edit(x, HEIGHT / 2, PointStates.NO_FIRE);
+            engine.edit(x, HEIGHT / 2 + 1, PointStates.LITTER);
+        }
+        engine.edit(3 * WIDTH / 4, HEIGHT / 4, PointStates.FIRE);
+        assertCounted(engine, "edited in the fire");
+        run(engine, "run after edits");
+
+        assertTrue(engine.grow(WIDTH + 40, HEIGHT + 30), "the board did not grow");
+        assertCounted(engine, "grown");
+        run(engine, "run after growing");
+
+        Grid base = engine.getGrid();
+        Grid replica = base.replica(11);
+        SimulationEngine replicaEngine = new SimulationEngine(replica, mode);
+        assertCounted(replicaEngine, "replica");
+        run(replicaEngine, "replica run");
+        replica.resetFrom(base, 13);
+        assertCounted(replicaEngine, "reset replica");
+        run(replicaEngine, "reset replica run");
+        replica.close();
+
+        ByteArrayOutputStream checkpoint = new ByteArrayOutputStream();
+        new Checkpointer(engine).checkpoint(checkpoint);
+        SimulationEngine restored = Checkpointer.restore(List.of(new ByteArrayInputStream(checkpoint.toByteArray())));
+        restored.setSteppingMode(mode);
+        assertCounted(restored, "restored");
+        run(restored, "run after restoring");
+    }
+
+    private static void run(SimulationEngine engine, String phase) {
+        for (int i = 0; i < TICKS; i++) {
+            engine.step();
+            assertCounted(engine, phase + ", tick " + engine.getTick());
+        }
+    }
+
+    private static void assertCounted(SimulationEngine engine, String phase) {
+        assertEquals(engine.getGrid().recountStatistics(), engine.toBoardStatistics(), phase);
+    }
+}
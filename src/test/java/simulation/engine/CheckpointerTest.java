@@ -0,0 +1,161 @@
+package simulation.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import simulation.PointStates;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static simulation.engine.TestBoards.HEIGHT;
+import static simulation.engine.TestBoards.WIDTH;
+import static simulation.engine.TestBoards.engine;
+
+class CheckpointerTest {
+    // cells cool from their initial temperature to the air temperature in the first ticks
+    private static final int SETTLE_TICKS = 20;
+
+    @ParameterizedTest
+    @EnumSource(SteppingMode.class)
+    void idleBoardGivesNearlyEmptyIncrementalCheckpoint(SteppingMode mode) throws IOException {
+        SimulationEngine engine = engine(mode);
+        engine.run(SETTLE_TICKS);
+
+        assertNearlyEmptyIncremental(engine);
+    }
+
+    @ParameterizedTest
+    @EnumSource(SteppingMode.class)
+    void burntOutBoardGivesNearlyEmptyIncrementalCheckpoint(SteppingMode mode) throws IOException {
+        SimulationEngine engine = engine(mode);
+        engine.edit(WIDTH / 2, HEIGHT / 2, PointStates.FIRE);
+        engine.run(SETTLE_TICKS);
+        assertTrue(engine.toBoardStatistics().fireFields() > 0, "the fire did not catch");
+        for (int i = 0; i < 5000 && engine.toBoardStatistics().fireFields() > 0; i++) {
+            engine.step();
+        }
+        assertEquals(0, engine.toBoardStatistics().fireFields(), "the fire did not burn out");
+        engine.run(SETTLE_TICKS);
+
+        assertNearlyEmptyIncremental(engine);
+    }
+
+    @ParameterizedTest
+    @EnumSource(SteppingMode.class)
+    void fullAndIncrementalCheckpointsRestoreTheBoard(SteppingMode mode) throws IOException {
+        SimulationEngine engine = engine(mode);
+        engine.edit(WIDTH / 2, HEIGHT / 2, PointStates.FIRE);
+        Checkpointer checkpointer = new Checkpointer(engine);
+        List<byte[]> chain = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            engine.run(15);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            checkpointer.checkpoint(out, i == 0);
+            chain.add(out.toByteArray());
+        }
+        assertTrue(engine.toBoardStatistics().fireFields() > 0, "the fire went out before the last checkpoint");
+
+        SimulationEngine restored = Checkpointer.restore(streams(chain));
+        restored.setSteppingMode(mode);
+        assertEquals(TestBoards.digest(engine.getGrid()), TestBoards.digest(restored.getGrid()));
+
+        engine.run(30);
+        restored.run(30);
+        assertEquals(TestBoards.digest(engine.getGrid()), TestBoards.digest(restored.getGrid()));
+    }
+
+    @Test
+    void chainWithoutItsFullCheckpointIsRejected() throws IOException {
+        SimulationEngine engine = engine(SteppingMode.FULL_SCAN);
+        Checkpointer checkpointer = new Checkpointer(engine);
+        checkpointer.checkpoint(OutputStream.nullOutputStream());
+        engine.step();
+        ByteArrayOutputStream incremental = new ByteArrayOutputStream();
+        checkpointer.checkpoint(incremental);
+
+        IOException exception = assertThrows(IOException.class,
+                () -> Checkpointer.restore(streams(List.of(incremental.toByteArray()))));
+        assertEquals("Chain must start with a full checkpoint (0), got 1", exception.getMessage());
+    }
+
+    @Test
+    void incrementalOfAnotherBoardSizeIsRejected() throws IOException {
+        SimulationEngine engine = engine(SteppingMode.FULL_SCAN);
+        Checkpointer checkpointer = new Checkpointer(engine);
+        ByteArrayOutputStream full = new ByteArrayOutputStream();
+        checkpointer.checkpoint(full);
+        engine.step();
+        ByteArrayOutputStream incremental = new ByteArrayOutputStream();
+        checkpointer.checkpoint(incremental);
+
+        byte[] resized = withHeight(incremental.toByteArray(), HEIGHT + 1);
+        IOException exception = assertThrows(IOException.class,
+                () -> Checkpointer.restore(streams(List.of(full.toByteArray(), resized))));
+        assertEquals("Checkpoint 1 is of another board than checkpoint 0 of the chain", exception.getMessage());
+    }
+
+    // the checkpoint with the board height in its header replaced, see the layout in Checkpointer
+    private static byte[] withHeight(byte[] checkpoint, int height) throws IOException {
+        DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(checkpoint)));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            // magic, version, chain id, sequence number, tick, seed, stepping mode
+            out.writeInt(in.readInt());
+            out.writeInt(in.readInt());
+            out.writeLong(in.readLong());
+            out.writeInt(in.readInt());
+            out.writeLong(in.readLong());
+            out.writeLong(in.readLong());
+            out.writeUTF(in.readUTF());
+            // parameters: map size, wind, moisture, temperatures, cell size and point percentage
+            out.writeInt(in.readInt());
+            out.writeInt(in.readInt());
+            out.writeDouble(in.readDouble());
+            out.writeUTF(in.readUTF());
+            for (int i = 0; i < 8; i++) {
+                out.writeDouble(in.readDouble());
+            }
+            out.writeInt(in.readInt());
+            out.writeDouble(in.readDouble());
+            // width, then the height replaced
+            out.writeInt(in.readInt());
+            in.readInt();
+            out.writeInt(height);
+            in.transferTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<InputStream> streams(List<byte[]> chain) {
+        List<InputStream> in = new ArrayList<>();
+        for (byte[] checkpoint : chain) {
+            in.add(new ByteArrayInputStream(checkpoint));
+        }
+        return in;
+    }
+
+    private static void assertNearlyEmptyIncremental(SimulationEngine engine) throws IOException {
+        Checkpointer checkpointer = new Checkpointer(engine);
+        ByteArrayOutputStream full = new ByteArrayOutputStream();
+        checkpointer.checkpoint(full);
+        engine.run(10);
+        ByteArrayOutputStream incremental = new ByteArrayOutputStream();
+        checkpointer.checkpoint(incremental);
+
+        assertTrue(incremental.size() < full.size() / 100,
+                "incremental checkpoint of " + incremental.size() + " bytes, the full one has " + full.size());
+    }
+}
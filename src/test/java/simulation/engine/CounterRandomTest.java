@@ -0,0 +1,57 @@
+package simulation.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CounterRandomTest {
+    private static final long SEED = 7;
+
+    @Test
+    void sameKeyGivesTheSameDraw() {
+        assertEquals(CounterRandom.nextLong(SEED, 12, 345, 6), CounterRandom.nextLong(SEED, 12, 345, 6));
+        assertEquals(CounterRandom.nextDouble(SEED, 12, 345, 6), CounterRandom.nextDouble(SEED, 12, 345, 6));
+        assertEquals(CounterRandom.nextGaussian(SEED, 12, 345, 6), CounterRandom.nextGaussian(SEED, 12, 345, 6));
+        // drawing others in between changes nothing
+        long first = CounterRandom.nextLong(SEED, 1, 2, 3);
+        CounterRandom.nextLong(SEED, 1, 2, 4);
+        assertEquals(first, CounterRandom.nextLong(SEED, 1, 2, 3));
+    }
+
+    @Test
+    void everyPartOfTheKeyChangesTheDraw() {
+        long draw = CounterRandom.nextLong(SEED, 12, 345, 6);
+        assertNotEquals(draw, CounterRandom.nextLong(SEED + 1, 12, 345, 6), "seed");
+        assertNotEquals(draw, CounterRandom.nextLong(SEED, 13, 345, 6), "tick");
+        assertNotEquals(draw, CounterRandom.nextLong(SEED, 12, 346, 6), "cell");
+        assertNotEquals(draw, CounterRandom.nextLong(SEED, 12, 345, 7), "purpose");
+    }
+
+    @Test
+    void purposesOfNeighbouringCellsNeverCollide() {
+        // purposes are packed below the cell, so every purpose of every cell has to stay distinct
+        Set<Long> draws = new HashSet<>();
+        for (int cell = 0; cell < 64; cell++) {
+            for (int purpose = 0; purpose < 256; purpose++) {
+                assertTrue(draws.add(CounterRandom.nextLong(SEED, 0, cell, purpose)), "cell " + cell + " purpose " + purpose);
+            }
+        }
+    }
+
+    @Test
+    void doublesAreUniformInTheUnitInterval() {
+        int draws = 100_000;
+        double sum = 0;
+        for (int cell = 0; cell < draws; cell++) {
+            double value = CounterRandom.nextDouble(SEED, 0, cell, 0);
+            assertTrue(value >= 0 && value < 1, "draw " + value);
+            sum += value;
+        }
+        assertEquals(0.5, sum / draws, 0.01);
+    }
+}
@@ -0,0 +1,76 @@
+package simulation.engine;
+
+import org.junit.jupiter.api.Test;
+import simulation.PointStates;
+import simulation.records.EnsembleResult;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static simulation.engine.TestBoards.HEIGHT;
+import static simulation.engine.TestBoards.WIDTH;
+
+class EnsembleTest {
+    @Test
+    void resultDoesNotDependOnThePool() {
+        SimulationEngine engine = TestBoards.engine(SteppingMode.FULL_SCAN);
+        engine.edit(WIDTH / 2, HEIGHT / 2, PointStates.FIRE);
+
+        EnsembleResult sequential = run(engine.getGrid(), 1);
+        EnsembleResult parallel = run(engine.getGrid(), 3);
+
+        assertTrue(sequential.statistics().get("burntFields").max() > 0, "no replica burnt anything");
+        assertArrayEquals(sequential.burnProbability(), parallel.burnProbability());
+        assertArrayEquals(sequential.meanArrivalTick(), parallel.meanArrivalTick());
+        // replicas finish in any order, so sums of doubles may differ in the last bit
+        assertEquals(sequential.statistics().get("burntFields").mean(), parallel.statistics().get("burntFields").mean(), 1e-9);
+    }
+
+    @Test
+    void replicaMatchesAFullScanOfItsSeed() {
+        SimulationEngine engine = TestBoards.engine(SteppingMode.FRONTIER);
+        engine.edit(WIDTH / 2, HEIGHT / 2, PointStates.FIRE);
+        engine.edit(WIDTH / 4, HEIGHT / 3, PointStates.FIRE);
+        // a base already burning, so replicas start from its unsettled cells rather than a full first scan
+        engine.run(15);
+        Grid base = engine.getGrid();
+
+        EnsembleResult result;
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            result = new Ensemble(base, 1, 40, 11).run(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        try (Grid replica = base.replica(CounterRandom.nextLong(11, 0, 0, 0))) {
+            FullScanStepper stepper = new FullScanStepper(replica);
+            boolean[] burnt = new boolean[base.cells()];
+            for (int t = 0; t <= 40; t++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    for (int y = 0; y < HEIGHT; y++) {
+                        int cell = replica.index(x, y);
+                        burnt[x * HEIGHT + y] |= replica.getType(cell) != PointStates.NO_FIRE && replica.isBurning(cell);
+                    }
+                }
+                if (t < 40) {
+                    stepper.step();
+                }
+            }
+            for (int pixel = 0; pixel < burnt.length; pixel++) {
+                assertEquals(burnt[pixel] ? 1.0f : 0.0f, result.burnProbability()[pixel], "pixel " + pixel);
+            }
+        }
+    }
+
+    private static EnsembleResult run(Grid grid, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return new Ensemble(grid, 12, 60, 11).run(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package simulation.engine;
+
+import org.junit.jupiter.api.Test;
+import simulation.PointStates;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static simulation.engine.TestBoards.HEIGHT;
+import static simulation.engine.TestBoards.WIDTH;
+
+class FrontierStepperTest {
+    private static final int TICKS = 60;
+    // cells start above the air temperature and cool down to it within this many ticks
+    private static final int SETTLE_TICKS = 200;
+
+    @Test
+    void settledBoardIsNotVisited() {
+        SimulationEngine engine = TestBoards.engine(SteppingMode.FULL_SCAN);
+        FrontierStepper stepper = new FrontierStepper(engine.getGrid());
+
+        assertTrue(settle(stepper, null) < SETTLE_TICKS, "a board without fire did not settle");
+        for (int i = 0; i < 10; i++) {
+            stepper.step();
+            assertEquals(0, stepper.activeCells(), "tick " + i + " after settling");
+        }
+    }
+
+    @Test
+    void visitsOnlyTheCellsAroundTheFire() throws IOException {
+        SimulationEngine fullScan = TestBoards.engine(SteppingMode.FULL_SCAN);
+        SimulationEngine frontier = TestBoards.engine(SteppingMode.FULL_SCAN);
+        FrontierStepper stepper = new FrontierStepper(frontier.getGrid());
+        assertTrue(settle(stepper, fullScan) < SETTLE_TICKS, "the board did not settle");
+
+        for (SimulationEngine engine : new SimulationEngine[]{fullScan, frontier}) {
+            engine.edit(WIDTH / 2, HEIGHT / 2, PointStates.FIRE);
+        }
+        for (int i = 0; i < TICKS; i++) {
+            stepper.step();
+            fullScan.step();
+            assertTrue(stepper.activeCells() < frontier.getGrid().cells() / 4,
+                    "tick " + i + " visited " + stepper.activeCells() + " cells");
+            if (i == TICKS / 2) {
+                // far from the fire, in cells that settled long ago
+                for (SimulationEngine engine : new SimulationEngine[]{fullScan, frontier}) {
+                    engine.edit(WIDTH / 8, HEIGHT / 8, PointStates.FIRE);
+                }
+            }
+        }
+
+        assertTrue(frontier.toBoardStatistics().fireFields() > 0, "the fire went out");
+        assertEquals(TestBoards.digest(fullScan.getGrid()), TestBoards.digest(frontier.getGrid()));
+    }
+
+    // ticks until a tick visits no cell, at most SETTLE_TICKS, stepping the other engine along
+    private static int settle(FrontierStepper stepper, SimulationEngine other) {
+        for (int tick = 0; tick < SETTLE_TICKS; tick++) {
+            stepper.step();
+            if (other != null) {
+                other.step();
+            }
+            if (stepper.activeCells() == 0) {
+                return tick;
+            }
+        }
+        return SETTLE_TICKS;
+    }
+}
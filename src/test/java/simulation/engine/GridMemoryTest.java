@@ -0,0 +1,65 @@
+package simulation.engine;
+
+import org.junit.jupiter.api.Test;
+import simulation.PointStates;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static simulation.engine.TestBoards.HEIGHT;
+import static simulation.engine.TestBoards.WIDTH;
+
+class GridMemoryTest {
+    private static final int SIZE = 1200;
+
+    @Test
+    void closingAnOffHeapGridFreesItsMemory() {
+        Grid grid = new Grid(SIZE, SIZE, TestBoards.config(SIZE, SIZE), TestBoards.SEED, GridStorage.OFF_HEAP);
+        long columns = grid.reservedBytes();
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                grid.addFireSource(grid.index(x, y));
+            }
+        }
+        assertTrue(grid.reservedBytes() > columns, "the fire sources took no level chunks");
+
+        grid.close();
+
+        assertEquals(0, grid.reservedBytes());
+        assertThrows(IllegalStateException.class, () -> grid.isFireSource(grid.index(0, 0)));
+    }
+
+    @Test
+    void heapGridsReserveNothingOffTheHeap() {
+        try (Grid grid = new Grid(SIZE, SIZE, TestBoards.config(SIZE, SIZE), TestBoards.SEED, GridStorage.HEAP)) {
+            grid.addFireSource(grid.index(0, 0));
+            assertEquals(0, grid.reservedBytes());
+        }
+    }
+
+    @Test
+    void offHeapGridsRunLikeHeapGrids() throws IOException {
+        assertEquals(run(GridStorage.HEAP), run(GridStorage.OFF_HEAP));
+    }
+
+    // digests of a board that burnt, grew and burnt on, and of a replica of it, which copy every column
+    private static String run(GridStorage storage) throws IOException {
+        SimulationEngine engine = new SimulationEngine(WIDTH, HEIGHT, TestBoards.CONFIG, TestBoards.SEED, storage);
+        engine.setSteppingMode(SteppingMode.FRONTIER);
+        engine.edit(WIDTH / 2, HEIGHT / 2, PointStates.FIRE);
+        engine.run(20);
+        assertTrue(engine.grow(WIDTH + 20, HEIGHT + 10), "the board did not grow");
+        engine.run(20);
+        try (Grid replica = engine.getGrid().replica(11)) {
+            Stepper stepper = new FrontierStepper(replica);
+            for (int t = 0; t < 10; t++) {
+                stepper.step();
+            }
+            String digests = TestBoards.digest(engine.getGrid()) + " " + TestBoards.digest(replica);
+            engine.getGrid().close();
+            return digests;
+        }
+    }
+}
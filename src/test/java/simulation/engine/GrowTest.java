@@ -0,0 +1,92 @@
+package simulation.engine;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import simulation.PointStates;
+import simulation.records.BoardConfig;
+import simulation.records.BoardStatistics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static simulation.engine.TestBoards.HEIGHT;
+import static simulation.engine.TestBoards.WIDTH;
+
+class GrowTest {
+    // the map is larger than the board at first, so growing uncovers more of it
+    private static final int GROWN_WIDTH = WIDTH + 60;
+    private static final int GROWN_HEIGHT = HEIGHT + 40;
+    private static final BoardConfig CONFIG = TestBoards.config(GROWN_WIDTH, GROWN_HEIGHT);
+
+    @ParameterizedTest
+    @EnumSource(SteppingMode.class)
+    void growingInAFireKeepsEveryCellAndGeneratesOnlyTheNewPart(SteppingMode mode) throws IOException {
+        SimulationEngine engine = new SimulationEngine(WIDTH, HEIGHT, CONFIG, TestBoards.SEED);
+        engine.setSteppingMode(mode);
+        engine.edit(WIDTH / 2, HEIGHT / 2, PointStates.FIRE);
+        engine.edit(WIDTH - 3, HEIGHT - 3, PointStates.FIRE);
+        engine.run(30);
+        Grid before = engine.getGrid();
+        BoardStatistics statistics = engine.toBoardStatistics();
+        assertTrue(statistics.fireFields() > 0, "the fire did not catch");
+        int generation = before.nextGeneration();
+        engine.step();
+        byte[][] cells = new byte[WIDTH * HEIGHT][];
+        boolean[] changed = new boolean[WIDTH * HEIGHT];
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                cells[x * HEIGHT + y] = cell(before, x, y);
+                changed[x * HEIGHT + y] = before.changedSince(before.index(x, y), generation);
+            }
+        }
+        statistics = engine.toBoardStatistics();
+
+        assertTrue(engine.grow(GROWN_WIDTH, GROWN_HEIGHT), "the board did not grow");
+        Grid grown = engine.getGrid();
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                assertArrayEquals(cells[x * HEIGHT + y], cell(grown, x, y), "cell " + x + "," + y);
+                assertEquals(changed[x * HEIGHT + y], grown.changedSince(grown.index(x, y), generation), "change of " + x + "," + y);
+            }
+        }
+
+        // the new part has the landscape a board of the grown size generates there, and all it adds is its
+        // fuel; heights and humidity are drawn at the tick the cells were made, so they are not compared
+        Grid generated = new SimulationEngine(GROWN_WIDTH, GROWN_HEIGHT, CONFIG, TestBoards.SEED).getGrid();
+        int addedFuel = 0;
+        for (int x = 0; x < GROWN_WIDTH; x++) {
+            for (int y = x < WIDTH ? HEIGHT : 0; y < GROWN_HEIGHT; y++) {
+                int cell = grown.index(x, y);
+                assertEquals(generated.getType(cell), grown.getType(cell), "type at " + x + "," + y);
+                assertEquals(generated.getElevation(cell), grown.getElevation(cell), "elevation at " + x + "," + y);
+                if (grown.getType(cell) != PointStates.NO_FIRE) {
+                    addedFuel++;
+                }
+            }
+        }
+        assertTrue(addedFuel > 0, "nothing was generated");
+        BoardStatistics grownStatistics = engine.toBoardStatistics();
+        assertEquals(statistics.allFields() + addedFuel, grownStatistics.allFields());
+        assertEquals(statistics.burntFields(), grownStatistics.burntFields());
+        assertEquals(statistics.fireFields(), grownStatistics.fireFields());
+        assertEquals(grown.recountStatistics(), grownStatistics);
+
+        // the kept cells are tallied as before, so the fire moves them between the counters correctly
+        for (int i = 0; i < 30; i++) {
+            engine.step();
+            assertEquals(grown.recountStatistics(), engine.toBoardStatistics(), "tick " + engine.getTick());
+        }
+    }
+
+    private static byte[] cell(Grid grid, int x, int y) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        grid.writeCell(out, grid.index(x, y));
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,100 @@
+package simulation.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LevelKernelTest {
+    private static final double AIR_TEMPERATURE = 20.0;
+    private static final int LEVELS = Grid.LEVELS;
+
+    @Test
+    void testsRunWithTheVectorisedKernel() {
+        assertTrue(LevelKernel.select() instanceof VectorLevelKernel, "jdk.incubator.vector is not added to the tests");
+    }
+
+    @Test
+    void runsOfCellsMatchTheScalarKernelCellByCell() {
+        LevelKernel scalar = new ScalarLevelKernel();
+        for (LevelKernel kernel : new LevelKernel[]{scalar, LevelKernel.select()}) {
+            for (boolean direct : new boolean[]{false, true}) {
+                // odd offsets and lengths, so runs start and end in the middle of vectors
+                for (int[] run : new int[][]{{0, LevelChunks.CHUNK_CELLS}, {3, 1}, {17, 45}, {LevelChunks.CHUNK_CELLS - 7, 7}}) {
+                    String name = kernel.getClass().getSimpleName() + (direct ? " on direct buffers" : "") + " from cell " + run[0];
+                    assertSameTick(scalar, kernel, direct, run[0], run[1], name);
+                }
+            }
+        }
+    }
+
+    private static void assertSameTick(LevelKernel scalar, LevelKernel kernel, boolean direct, int first, int cells, String name) {
+        Random random = new Random(first);
+        FloatBuffer temperatures = chunk(false);
+        int[] fire = new int[cells];
+        double[] burnTemps = new double[cells];
+        float[] roundedBurnTemps = new float[cells];
+        for (int i = 0; i < LevelChunks.CHUNK_FLOATS; i++) {
+            // some levels exactly at the burning temperature and some that do not move
+            temperatures.put(i, random.nextInt(4) == 0 ? (float) AIR_TEMPERATURE : 20 + random.nextFloat() * 600);
+        }
+        for (int c = 0; c < cells; c++) {
+            fire[c] = random.nextInt(8) == 0 ? random.nextInt(1 << LEVELS) : 0;
+            burnTemps[c] = random.nextInt(4) == 0 ? temperatures.get(LevelChunks.offset(first + c)) : 200 + random.nextDouble() * 100;
+            float rounded = (float) burnTemps[c];
+            roundedBurnTemps[c] = rounded < burnTemps[c] ? Math.nextUp(rounded) : rounded;
+        }
+
+        FloatBuffer expectedStates = filled(false, 1.0f);
+        FloatBuffer expectedNext = filled(false, -1.0f);
+        int[] expected = new int[cells];
+        for (int c = 0; c < cells; c++) {
+            int base = LevelChunks.offset(first + c);
+            scalar.burn(expectedStates, temperatures, expectedNext, base, fire[c], burnTemps[c], AIR_TEMPERATURE);
+            expected[c] = scalar.compare(temperatures, expectedNext, base, burnTemps[c]);
+        }
+
+        FloatBuffer ownTemperatures = chunk(direct);
+        ownTemperatures.put(0, temperatures, 0, LevelChunks.CHUNK_FLOATS);
+        FloatBuffer states = filled(direct, 1.0f);
+        FloatBuffer next = filled(direct, -1.0f);
+        int base = LevelChunks.offset(first);
+        kernel.cool(ownTemperatures, next, base, cells, AIR_TEMPERATURE);
+        for (int c = 0; c < cells; c++) {
+            if (fire[c] != 0) {
+                kernel.burn(states, ownTemperatures, next, LevelChunks.offset(first + c), fire[c], burnTemps[c], AIR_TEMPERATURE);
+            }
+        }
+        int[] compared = new int[cells];
+        boolean moved = kernel.compare(ownTemperatures, next, base, cells, roundedBurnTemps, compared);
+
+        assertEquals(expectedNext, next, name + ": next temperatures");
+        assertEquals(expectedStates, states, name + ": states");
+        assertArrayEquals(expected, compared, name + ": compared");
+        boolean anyMoved = false;
+        for (int result : expected) {
+            anyMoved |= (result & LevelKernel.MOVED) != 0;
+        }
+        assertEquals(anyMoved, moved, name + ": moved");
+    }
+
+    private static FloatBuffer filled(boolean direct, float value) {
+        FloatBuffer chunk = chunk(direct);
+        for (int i = 0; i < LevelChunks.CHUNK_FLOATS; i++) {
+            chunk.put(i, value);
+        }
+        return chunk;
+    }
+
+    private static FloatBuffer chunk(boolean direct) {
+        return direct
+                ? ByteBuffer.allocateDirect(LevelChunks.CHUNK_FLOATS * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer()
+                : FloatBuffer.allocate(LevelChunks.CHUNK_FLOATS);
+    }
+}
@@ -0,0 +1,80 @@
+package simulation.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationLoopTest {
+    @Test
+    void failedCommandIsReportedAndLaterCommandsRun() throws InterruptedException {
+        SimulationLoop loop = new SimulationLoop(TestBoards.engine(40, 20, SteppingMode.FULL_SCAN));
+        BlockingQueue<RuntimeException> errors = new LinkedBlockingQueue<>();
+        loop.setErrorHandler(errors::add);
+        loop.start();
+        try {
+            CountDownLatch ran = new CountDownLatch(1);
+            loop.submit(engine -> {
+                throw new IllegalStateException("bad command");
+            });
+            loop.submit(engine -> ran.countDown());
+
+            assertTrue(ran.await(5, TimeUnit.SECONDS), "the command after the failed one did not run");
+            assertEquals("bad command", errors.poll(5, TimeUnit.SECONDS).getMessage());
+        } finally {
+            loop.shutdown();
+        }
+    }
+
+    @Test
+    void failedTickIsReportedAndPausesTheLoop() throws InterruptedException {
+        SimulationLoop loop = new SimulationLoop(TestBoards.engine(40, 20, SteppingMode.FULL_SCAN));
+        BlockingQueue<RuntimeException> errors = new LinkedBlockingQueue<>();
+        loop.setErrorHandler(errors::add);
+        loop.setTickListener(engine -> {
+            throw new IllegalStateException("bad listener");
+        });
+        loop.start();
+        try {
+            loop.setRunning(true);
+
+            assertEquals("bad listener", errors.poll(5, TimeUnit.SECONDS).getMessage());
+            assertFalse(loop.isRunning());
+            CountDownLatch ran = new CountDownLatch(1);
+            loop.submit(engine -> ran.countDown());
+            assertTrue(ran.await(5, TimeUnit.SECONDS), "the loop stopped after the failed tick");
+        } finally {
+            loop.shutdown();
+        }
+    }
+
+    @Test
+    void streamOfCommandsDoesNotHoldUpTicks() throws InterruptedException {
+        SimulationLoop loop = new SimulationLoop(TestBoards.engine(40, 20, SteppingMode.FULL_SCAN));
+        CountDownLatch ticked = new CountDownLatch(3);
+        loop.setTickListener(engine -> ticked.countDown());
+        loop.start();
+        try {
+            // every command queues the next one, so there always is one waiting
+            Consumer<SimulationEngine> command = new Consumer<>() {
+                @Override
+                public void accept(SimulationEngine engine) {
+                    loop.submit(this);
+                }
+            };
+            loop.submit(command);
+            loop.setRunning(true);
+
+            assertTrue(ticked.await(5, TimeUnit.SECONDS), "no ticks while commands kept coming");
+        } finally {
+            loop.shutdown();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package simulation.engine;
+
+import org.junit.jupiter.api.Test;
+import simulation.PointStates;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static simulation.engine.TestBoards.HEIGHT;
+import static simulation.engine.TestBoards.WIDTH;
+
+class SteppingModeTest {
+    private static final int TICKS = 150;
+
+    @Test
+    void modesGiveTheSameBoard() throws IOException {
+        String expected = null;
+        for (SteppingMode mode : SteppingMode.values()) {
+            SimulationEngine engine = TestBoards.engine(mode);
+            engine.edit(WIDTH / 2, HEIGHT / 2, PointStates.FIRE);
+            engine.edit(WIDTH / 4, HEIGHT / 3, PointStates.FIRE);
+            for (int i = 0; i < TICKS; i++) {
+                engine.step();
+                if (i == TICKS / 2) {
+                    engine.edit(3 * WIDTH / 4, 2 * HEIGHT / 3, PointStates.FIRE);
+                }
+            }
+            assertTrue(engine.toBoardStatistics().burntFields() > 0, "the fire did not spread in " + mode);
+
+            String hash = TestBoards.digest(engine.getGrid());
+            if (expected == null) {
+                expected = hash;
+            } else {
+                assertEquals(expected, hash, mode + " differs from " + SteppingMode.values()[0]);
+            }
+        }
+    }
+}
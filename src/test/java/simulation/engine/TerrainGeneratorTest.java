@@ -0,0 +1,77 @@
+package simulation.engine;
+
+import org.junit.jupiter.api.Test;
+import simulation.PointStates;
+import simulation.records.BoardConfig;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TerrainGeneratorTest {
+    // a few tiles each way, so tiles are generated on different threads
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 400;
+    private static final BoardConfig CONFIG = TestBoards.config(WIDTH, HEIGHT);
+
+    @Test
+    void terrainDoesNotDependOnThePool() {
+        Grid sequential = generate(1);
+        Grid parallel = generate(4);
+
+        assertArrayEquals(elevations(sequential), elevations(parallel));
+        assertArrayEquals(types(sequential), types(parallel));
+        assertEquals(sequential.recountStatistics(), parallel.toBoardStatistics());
+        sequential.close();
+        parallel.close();
+    }
+
+    @Test
+    void pointPercentageOfTheMapIsLeftAsClearings() {
+        Grid grid = generate(1);
+        int clearings = 0;
+        for (int x = 0; x < CONFIG.mapWidth(); x++) {
+            for (int y = 0; y < CONFIG.mapHeight(); y++) {
+                if (grid.getType(grid.index(SimulationEngine.MAP_OFFSET_X + x, SimulationEngine.MAP_OFFSET_Y + y)) == PointStates.NO_FIRE) {
+                    clearings++;
+                }
+            }
+        }
+        grid.close();
+
+        assertEquals(CONFIG.pointPercentage(), (double) clearings / (CONFIG.mapWidth() * CONFIG.mapHeight()), 0.01);
+    }
+
+    private static Grid generate(int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Grid grid = pool.submit(() -> new Grid(WIDTH, HEIGHT, CONFIG, TestBoards.SEED)).join();
+            new TerrainGenerator(SimulationEngine.MAP_OFFSET_X, SimulationEngine.MAP_OFFSET_Y, CONFIG.mapWidth(),
+                    CONFIG.mapHeight(), CONFIG.pointPercentage(), pool).generate(grid, 0, 0);
+            return grid;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int[] elevations(Grid grid) {
+        int[] elevations = new int[grid.cells()];
+        for (int x = 0; x < grid.width(); x++) {
+            for (int y = 0; y < grid.height(); y++) {
+                elevations[x * grid.height() + y] = grid.getElevation(grid.index(x, y));
+            }
+        }
+        return elevations;
+    }
+
+    private static byte[] types(Grid grid) {
+        byte[] types = new byte[grid.cells()];
+        for (int x = 0; x < grid.width(); x++) {
+            for (int y = 0; y < grid.height(); y++) {
+                types[x * grid.height() + y] = (byte) grid.getType(grid.index(x, y)).ordinal();
+            }
+        }
+        return types;
+    }
+}
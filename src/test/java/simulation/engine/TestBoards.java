@@ -0,0 +1,64 @@
+package simulation.engine;
+
+import simulation.Directions;
+import simulation.records.BoardConfig;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Boards shared by the tests: a small generated map with the default fuel and weather, and a digest of
+ * everything a tick reads of a board.
+ */
+public final class TestBoards {
+    public static final int WIDTH = 120;
+    public static final int HEIGHT = 90;
+    public static final long SEED = 7;
+    public static final BoardConfig CONFIG = config(WIDTH, HEIGHT);
+
+    private TestBoards() {
+    }
+
+    // configuration of a width x height board, the map inside its offsets
+    public static BoardConfig config(int width, int height) {
+        return new BoardConfig(width - 2 * SimulationEngine.MAP_OFFSET_X, height - 2 * SimulationEngine.MAP_OFFSET_Y,
+                10, Directions.EAST, 0.4, 0.001, 20, 260, 310, 300, 275, 215, 1, 0.1);
+    }
+
+    public static SimulationEngine engine(SteppingMode mode) {
+        return engine(WIDTH, HEIGHT, mode);
+    }
+
+    public static SimulationEngine engine(int width, int height, SteppingMode mode) {
+        SimulationEngine engine = new SimulationEngine(width, height, config(width, height), SEED);
+        engine.setSteppingMode(mode);
+        return engine;
+    }
+
+    /**
+     * SHA-256 of the tick and of every board cell as a checkpoint writes it, equal for boards a tick
+     * cannot tell apart.
+     */
+    public static String digest(Grid grid) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+        out.writeLong(grid.tick());
+        for (int x = 0; x < grid.width(); x++) {
+            for (int y = 0; y < grid.height(); y++) {
+                grid.writeCell(out, grid.index(x, y));
+            }
+        }
+        out.flush();
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
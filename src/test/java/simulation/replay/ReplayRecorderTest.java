@@ -0,0 +1,88 @@
+package simulation.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import simulation.PointStates;
+import simulation.engine.Grid;
+import simulation.engine.SimulationEngine;
+import simulation.engine.SteppingMode;
+import simulation.engine.TestBoards;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static simulation.engine.TestBoards.HEIGHT;
+import static simulation.engine.TestBoards.WIDTH;
+
+class ReplayRecorderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void idleBoardGivesNearlyEmptyDeltas() throws IOException {
+        SimulationEngine engine = TestBoards.engine(SteppingMode.FULL_SCAN);
+        engine.run(20);
+
+        Path keyframeOnly = directory.resolve("keyframe" + ReplayRecorder.EXTENSION);
+        try (ReplayRecorder recorder = new ReplayRecorder(keyframeOnly, WIDTH, HEIGHT, 1000)) {
+            recorder.record(engine.getGrid());
+        }
+        Path withDeltas = directory.resolve("deltas" + ReplayRecorder.EXTENSION);
+        int deltas = 50;
+        try (ReplayRecorder recorder = new ReplayRecorder(withDeltas, WIDTH, HEIGHT, 1000)) {
+            recorder.record(engine.getGrid());
+            for (int i = 0; i < deltas; i++) {
+                engine.step();
+                recorder.record(engine.getGrid());
+            }
+        }
+
+        long perDelta = (Files.size(withDeltas) - Files.size(keyframeOnly)) / deltas;
+        // frame header and an empty deflated count
+        assertTrue(perDelta < ReplayFormat.FRAME_HEADER_BYTES + 16, "deltas of " + perDelta + " bytes on an idle board");
+    }
+
+    @Test
+    void playerShowsWhatWasRecorded() throws IOException {
+        SimulationEngine engine = TestBoards.engine(SteppingMode.FULL_SCAN);
+        engine.edit(WIDTH / 2, HEIGHT / 2, PointStates.FIRE);
+        engine.edit(WIDTH / 4, HEIGHT / 3, PointStates.FIRE);
+
+        Path path = directory.resolve("fire" + ReplayRecorder.EXTENSION);
+        List<byte[]> shown = new ArrayList<>();
+        try (ReplayRecorder recorder = new ReplayRecorder(path, WIDTH, HEIGHT, 8)) {
+            for (int i = 0; i < 40; i++) {
+                recorder.record(engine.getGrid());
+                shown.add(visibleStates(engine.getGrid()));
+                engine.step();
+            }
+        }
+
+        try (ReplayPlayer player = ReplayPlayer.open(path)) {
+            assertEquals(shown.size(), player.frames());
+            for (int frame = 0; frame < shown.size(); frame++) {
+                assertArrayEquals(shown.get(frame), player.seek(frame), "frame " + frame);
+            }
+            // backwards, through the keyframes
+            for (int frame = shown.size() - 1; frame >= 0; frame -= 3) {
+                assertArrayEquals(shown.get(frame), player.seek(frame), "frame " + frame);
+            }
+        }
+    }
+
+    private static byte[] visibleStates(Grid grid) {
+        byte[] visible = new byte[grid.width() * grid.height()];
+        for (int x = 0; x < grid.width(); x++) {
+            for (int y = 0; y < grid.height(); y++) {
+                visible[x * grid.height() + y] = grid.visibleState(grid.index(x, y));
+            }
+        }
+        return visible;
+    }
+}